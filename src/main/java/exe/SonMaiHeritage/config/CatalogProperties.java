@@ -0,0 +1,19 @@
+package exe.SonMaiHeritage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.catalog")
+@Data
+public class CatalogProperties {
+    // Lower bounds of the price facet buckets (VND), ascending; the last bucket is open-ended
+    private List<Long> priceBuckets = new ArrayList<>(List.of(0L, 500_000L, 1_000_000L, 2_000_000L, 5_000_000L));
+    // Snapshots older than this are rebuilt even without a known change (direct DB edits, Redis outages)
+    private Duration snapshotMaxAge = Duration.ofMinutes(10);
+}
@@ -2,6 +2,8 @@ package exe.SonMaiHeritage.config;
 
 import exe.SonMaiHeritage.entity.*;
 import exe.SonMaiHeritage.repository.*;
+import exe.SonMaiHeritage.service.OrderCodeGenerator;
+import exe.SonMaiHeritage.service.OrderStatsService;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Value;
@@ -29,6 +31,8 @@ public class DataSeeder implements CommandLineRunner {
     private final AddressRepository addressRepository;
     private final OrderRepository orderRepository;
     private final PasswordEncoder passwordEncoder;
+    private final OrderCodeGenerator orderCodeGenerator;
+    private final OrderStatsService orderStatsService;
     
     @Value("${app.data.seeding.enabled:true}")
     private boolean seedingEnabled;
@@ -343,6 +347,7 @@ public class DataSeeder implements CommandLineRunner {
             seedProducts();
             seedUsers();
             seedAddresses();
+            orderStatsService.rebuild();
             
             log.info("Data recreated successfully!");
         } catch (Exception e) {
@@ -386,7 +391,7 @@ public class DataSeeder implements CommandLineRunner {
                 User customer = customers.get(0);
                 Product product = products.get(0);
                 
-                String orderCode = "ORD" + System.currentTimeMillis();
+                String orderCode = orderCodeGenerator.nextOrderCode();
                 
                 Order order = Order.builder()
                         .orderCode(orderCode)
@@ -401,9 +406,11 @@ public class DataSeeder implements CommandLineRunner {
                         .shipProvince("TP.HCM")
                         .createdDate(LocalDateTime.now().minusDays(1))
                         .updatedDate(LocalDateTime.now().minusDays(1))
+                        .confirmedDate(LocalDateTime.now().minusDays(1))
                         .build();
                 
                 orderRepository.save(order);
+                orderStatsService.rebuild();
                 log.info("Created sample order: {}", orderCode);
             }
             
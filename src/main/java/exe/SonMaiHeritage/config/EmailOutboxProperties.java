@@ -0,0 +1,23 @@
+package exe.SonMaiHeritage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.mail.outbox")
+@Data
+public class EmailOutboxProperties {
+    // Concurrent sends; workers mostly wait on the mail dispatcher, whose batches they fill
+    private int workers = 8;
+    // Claimed emails waiting for a worker; the poller never takes more than fits
+    private int queueCapacity = 100;
+    private int maxAttempts = 8;
+    // Backoff doubles from the initial delay after every failed attempt, up to the maximum
+    private Duration initialBackoff = Duration.ofSeconds(30);
+    private Duration maxBackoff = Duration.ofHours(1);
+    // How long a claimed email may stay SENDING before another poll takes it over
+    private Duration lease = Duration.ofMinutes(5);
+}
@@ -0,0 +1,39 @@
+package exe.SonMaiHeritage.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.templatemode.TemplateMode;
+import org.thymeleaf.templateresolver.ClassLoaderTemplateResolver;
+
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Template engine for emails, separate from any web view setup. Parsed templates are cached for the
+ * lifetime of the application; {@code html/*} names resolve to HTML and {@code text/*} to plain text.
+ */
+@Configuration
+public class EmailTemplateConfig {
+
+    @Bean
+    public TemplateEngine emailTemplateEngine() {
+        TemplateEngine engine = new TemplateEngine();
+        engine.addTemplateResolver(resolver("html/*", ".html", TemplateMode.HTML, 1));
+        engine.addTemplateResolver(resolver("text/*", ".txt", TemplateMode.TEXT, 2));
+        return engine;
+    }
+
+    private static ClassLoaderTemplateResolver resolver(String pattern, String suffix, TemplateMode mode, int order) {
+        ClassLoaderTemplateResolver resolver = new ClassLoaderTemplateResolver();
+        resolver.setPrefix("templates/email/");
+        resolver.setSuffix(suffix);
+        resolver.setTemplateMode(mode);
+        resolver.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        resolver.getResolvablePatternSpec().addPattern(pattern);
+        resolver.setCacheable(true);
+        resolver.setCacheTTLMs(null);
+        resolver.setOrder(order);
+        resolver.setCheckExistence(true);
+        return resolver;
+    }
+}
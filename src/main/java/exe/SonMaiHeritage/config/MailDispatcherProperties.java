@@ -0,0 +1,22 @@
+package exe.SonMaiHeritage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.mail.dispatcher")
+@Data
+public class MailDispatcherProperties {
+    // Messages sent back to back over one connection before the queue is checked again
+    private int batchSize = 20;
+    // How long the first message of a batch waits for company
+    private Duration linger = Duration.ofMillis(100);
+    // Idle SMTP connections are closed after this; servers drop them on their own after a few minutes
+    private Duration idleTimeout = Duration.ofSeconds(30);
+    private int queueCapacity = 1000;
+    // How long a caller of send() waits for its message
+    private Duration sendTimeout = Duration.ofMinutes(1);
+}
@@ -0,0 +1,21 @@
+package exe.SonMaiHeritage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.sales.rollup")
+@Data
+public class SalesRollupProperties {
+    private boolean enabled = true;
+    // Orders confirmed more recently than this are left for the next run, so transactions still
+    // committing with an earlier confirmation time can't slip behind the watermark
+    private Duration lag = Duration.ofMinutes(2);
+    // Orders folded per transaction
+    private int batchSize = 500;
+    // Widest range the chart API serves in one call
+    private int maxRangeDays = 366;
+}
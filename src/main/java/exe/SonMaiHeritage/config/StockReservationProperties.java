@@ -0,0 +1,19 @@
+package exe.SonMaiHeritage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.stock.reservation")
+@Data
+public class StockReservationProperties {
+    // When false checkout doesn't reserve, stock is only checked when the payment is confirmed
+    private boolean enabled = true;
+    // How long an unpaid order holds its stock
+    private Duration ttl = Duration.ofMinutes(15);
+    // Extra lifetime of the reservation key past its deadline, so the sweeper can still return the units
+    private Duration keyGrace = Duration.ofHours(1);
+}
@@ -1,6 +1,8 @@
 package exe.SonMaiHeritage.controller;
 
 import exe.SonMaiHeritage.config.DataSeeder;
+import exe.SonMaiHeritage.service.CatalogChangedEvent;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
@@ -13,15 +15,18 @@ import java.util.Map;
 public class AdminController {
     
     private final DataSeeder dataSeeder;
+    private final ApplicationEventPublisher eventPublisher;
     
-    public AdminController(DataSeeder dataSeeder) {
+    public AdminController(DataSeeder dataSeeder, ApplicationEventPublisher eventPublisher) {
         this.dataSeeder = dataSeeder;
+        this.eventPublisher = eventPublisher;
     }
     
     @PostMapping("/recreate-data")
     public ResponseEntity<String> recreateData() {
         try {
             dataSeeder.forceRecreateData();
+            eventPublisher.publishEvent(CatalogChangedEvent.reload());
             return ResponseEntity.ok("Data recreated successfully with UTF-8 encoding");
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -33,6 +38,7 @@ public class AdminController {
     public ResponseEntity<String> seedNewData() {
         try {
             dataSeeder.seedNewProductData();
+            eventPublisher.publishEvent(CatalogChangedEvent.reload());
             return ResponseEntity.ok("New product data seeded successfully");
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -70,6 +76,7 @@ public class AdminController {
     public ResponseEntity<String> seedProducts() {
         try {
             dataSeeder.seedProductsSimple();
+            eventPublisher.publishEvent(CatalogChangedEvent.reload());
             return ResponseEntity.ok("Products seeded successfully");
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -81,6 +88,7 @@ public class AdminController {
     public ResponseEntity<String> addLacquerPaintings() {
         try {
             dataSeeder.addLacquerPaintings();
+            eventPublisher.publishEvent(CatalogChangedEvent.reload());
             return ResponseEntity.ok("Lacquer paintings added successfully to database");
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -92,6 +100,7 @@ public class AdminController {
     public ResponseEntity<String> addLacquerPaintingsGet() {
         try {
             dataSeeder.addLacquerPaintings();
+            eventPublisher.publishEvent(CatalogChangedEvent.reload());
             return ResponseEntity.ok("Lacquer paintings added successfully to database");
         } catch (Exception e) {
             return ResponseEntity.internalServerError()
@@ -0,0 +1,54 @@
+package exe.SonMaiHeritage.controller;
+
+import exe.SonMaiHeritage.entity.EmailOutbox;
+import exe.SonMaiHeritage.service.EmailOutboxService;
+import exe.SonMaiHeritage.service.MailDispatcher;
+import exe.SonMaiHeritage.service.PersistenceCacheService;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/metrics")
+@RequiredArgsConstructor
+@PreAuthorize("hasRole('ADMIN')")
+@CrossOrigin(origins = "http://localhost:4200", allowCredentials = "true")
+public class AdminMetricsController {
+
+    private final PersistenceCacheService persistenceCacheService;
+    private final EmailOutboxService emailOutboxService;
+    private final MailDispatcher mailDispatcher;
+
+    @GetMapping("/cache")
+    public ResponseEntity<Map<String, Object>> getCacheStatistics() {
+        return ResponseEntity.ok(persistenceCacheService.statistics());
+    }
+
+    @DeleteMapping("/cache")
+    public ResponseEntity<Map<String, Object>> evictCaches() {
+        persistenceCacheService.evictAll();
+        return ResponseEntity.ok(Map.of("success", true, "message", "Đã xóa toàn bộ cache"));
+    }
+
+    @GetMapping("/mail")
+    public ResponseEntity<Map<String, Object>> getMailStatistics() {
+        return ResponseEntity.ok(mailDispatcher.metrics());
+    }
+
+    @GetMapping("/outbox")
+    public ResponseEntity<Map<EmailOutbox.OutboxStatus, Long>> getOutboxStatistics() {
+        return ResponseEntity.ok(emailOutboxService.countByStatus());
+    }
+
+    // Re-queues a DEAD email, e.g. after fixing the mail account
+    @PostMapping("/outbox/{id}/retry")
+    public ResponseEntity<Map<String, Object>> retryEmail(@PathVariable Long id) {
+        if (!emailOutboxService.retry(id)) {
+            return ResponseEntity.badRequest().body(Map.of("success", false, "message", "Email không ở trạng thái DEAD"));
+        }
+        return ResponseEntity.ok(Map.of("success", true, "message", "Đã đưa email vào hàng đợi gửi lại"));
+    }
+}
@@ -5,9 +5,14 @@ import exe.SonMaiHeritage.entity.Type;
 import exe.SonMaiHeritage.model.AdminProductResponse;
 import exe.SonMaiHeritage.repository.ProductRepository;
 import exe.SonMaiHeritage.repository.TypeRepository;
+import exe.SonMaiHeritage.service.CatalogChangedEvent;
 import exe.SonMaiHeritage.service.LocalFileService;
+import exe.SonMaiHeritage.service.OptimisticLockRetrier;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.access.prepost.PreAuthorize;
 import org.springframework.web.bind.annotation.*;
@@ -28,6 +33,8 @@ public class AdminProductController {
     private final ProductRepository productRepository;
     private final TypeRepository typeRepository;
     private final LocalFileService localFileService;
+    private final ApplicationEventPublisher eventPublisher;
+    private final OptimisticLockRetrier optimisticLockRetrier;
 
     @PostMapping
     public ResponseEntity<Map<String, Object>> addProduct(
@@ -96,6 +103,7 @@ public class AdminProductController {
                 .build();
 
             Product savedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(CatalogChangedEvent.productSaved(savedProduct));
             log.info("Product created successfully: {}", savedProduct.getId());
 
             Map<String, Object> response = new HashMap<>();
@@ -240,6 +248,7 @@ public class AdminProductController {
             }
 
             Product updatedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(CatalogChangedEvent.productSaved(updatedProduct));
             log.info("Product updated successfully: {}", updatedProduct.getId());
 
             Map<String, Object> response = new HashMap<>();
@@ -268,6 +277,7 @@ public class AdminProductController {
                 .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
 
             productRepository.delete(product);
+            eventPublisher.publishEvent(CatalogChangedEvent.productDeleted(id));
             log.info("Product deleted successfully: {}", id);
 
             Map<String, Object> response = new HashMap<>();
@@ -303,6 +313,7 @@ public class AdminProductController {
 
             product.setStatus(newStatus);
             Product updatedProduct = productRepository.save(product);
+            eventPublisher.publishEvent(CatalogChangedEvent.productSaved(updatedProduct));
             log.info("Product status updated: {} -> {}", id, newStatus);
 
             Map<String, Object> response = new HashMap<>();
@@ -329,9 +340,6 @@ public class AdminProductController {
             @RequestBody Map<String, Object> requestBody) {
         
         try {
-            Product product = productRepository.findById(id)
-                .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
-
             // Validate quantity
             Object quantityObj = requestBody.get("quantity");
             if (quantityObj == null) {
@@ -352,9 +360,30 @@ public class AdminProductController {
                     .body(Map.of("error", "Số lượng không được âm"));
             }
 
-            product.setQuantity(newQuantity);
-            Product updatedProduct = productRepository.save(product);
-            log.info("Product quantity updated: {} -> {} (product: {})", id, newQuantity, product.getName());
+            // Optional version the admin UI read the product at; a mismatch means someone else changed it since
+            Long expectedVersion;
+            try {
+                expectedVersion = requestBody.get("version") != null ? Long.valueOf(requestBody.get("version").toString()) : null;
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest()
+                    .body(Map.of("error", "Phiên bản không hợp lệ"));
+            }
+
+            Product updatedProduct = optimisticLockRetrier.execute("Update quantity of product " + id, () -> {
+                Product product = productRepository.findById(id)
+                    .orElseThrow(() -> new RuntimeException("Sản phẩm không tồn tại"));
+                if (expectedVersion != null && !expectedVersion.equals(product.getVersion())) {
+                    return null;
+                }
+                product.setQuantity(newQuantity);
+                return productRepository.save(product);
+            });
+            if (updatedProduct == null) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("error", "Sản phẩm đã được thay đổi bởi người khác, vui lòng tải lại"));
+            }
+            eventPublisher.publishEvent(CatalogChangedEvent.productSaved(updatedProduct));
+            log.info("Product quantity updated: {} -> {} (product: {})", id, newQuantity, updatedProduct.getName());
 
             Map<String, Object> response = new HashMap<>();
             response.put("success", true);
@@ -362,11 +391,16 @@ public class AdminProductController {
             response.put("product", Map.of(
                 "id", updatedProduct.getId(),
                 "name", updatedProduct.getName(),
-                "quantity", updatedProduct.getQuantity()
+                "quantity", updatedProduct.getQuantity(),
+                "version", updatedProduct.getVersion()
             ));
 
             return ResponseEntity.ok(response);
 
+        } catch (OptimisticLockingFailureException e) {
+            log.warn("Concurrent update of product {} quantity: {}", id, e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                .body(Map.of("error", "Sản phẩm đang được cập nhật đồng thời, vui lòng thử lại"));
         } catch (Exception e) {
             log.error("Error updating product quantity: {}", e.getMessage());
             return ResponseEntity.internalServerError()
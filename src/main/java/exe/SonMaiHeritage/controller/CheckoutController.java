@@ -2,8 +2,10 @@ package exe.SonMaiHeritage.controller;
 
 import exe.SonMaiHeritage.entity.Order;
 import exe.SonMaiHeritage.entity.Payment;
+import exe.SonMaiHeritage.exceptions.InsufficientStockException;
 import exe.SonMaiHeritage.model.CheckoutRequest;
 import exe.SonMaiHeritage.model.PayOSResponse;
+import exe.SonMaiHeritage.service.OrderCodeGenerator;
 import exe.SonMaiHeritage.service.OrderService;
 import exe.SonMaiHeritage.service.PaymentService;
 import exe.SonMaiHeritage.service.MockPaymentService;
@@ -26,12 +28,15 @@ public class CheckoutController {
     private final PaymentService paymentService;
     private final MockPaymentService mockPaymentService;
     private final PayOSService payOSService;
+    private final OrderCodeGenerator orderCodeGenerator;
     
-    public CheckoutController(OrderService orderService, PaymentService paymentService, MockPaymentService mockPaymentService, PayOSService payOSService) {
+    public CheckoutController(OrderService orderService, PaymentService paymentService, MockPaymentService mockPaymentService,
+                              PayOSService payOSService, OrderCodeGenerator orderCodeGenerator) {
         this.orderService = orderService;
         this.paymentService = paymentService;
         this.mockPaymentService = mockPaymentService;
         this.payOSService = payOSService;
+        this.orderCodeGenerator = orderCodeGenerator;
     }
     
     @PostMapping("/simple")
@@ -50,7 +55,7 @@ public class CheckoutController {
             log.info("Order created successfully: orderCode={}, orderId={}", order.getOrderCode(), order.getId());
             
             // Generate payment code
-            String paymentCode = "PAY" + System.currentTimeMillis() + "_" + order.getOrderCode();
+            String paymentCode = orderCodeGenerator.nextPaymentCode(order.getOrderCode());
             log.info("Generated payment code: {}", paymentCode);
             
             // Create payment record with PENDING status
@@ -80,6 +85,10 @@ public class CheckoutController {
                     "message", "Order created and confirmed successfully"
             ));
             
+        } catch (InsufficientStockException e) {
+            log.warn("Simple checkout rejected, insufficient stock: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(Map.of("success", false, "message", e.getMessage()));
         } catch (Exception e) {
             log.error("=== SIMPLE CHECKOUT ERROR ===");
             log.error("Error processing simple checkout: {}", e.getMessage(), e);
@@ -102,7 +111,7 @@ public class CheckoutController {
             log.info("Order created successfully: orderCode={}, orderId={}", order.getOrderCode(), order.getId());
             
             // Generate payment code
-            String paymentCode = "PAY" + System.currentTimeMillis() + "_" + order.getOrderCode();
+            String paymentCode = orderCodeGenerator.nextPaymentCode(order.getOrderCode());
             log.info("Generated payment code: {}", paymentCode);
             
             // Create payment record
@@ -133,6 +142,13 @@ public class CheckoutController {
                 return ResponseEntity.badRequest().body(payOSResponse);
             }
             
+        } catch (InsufficientStockException e) {
+            log.warn("PayOS checkout rejected, insufficient stock: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(PayOSResponse.builder()
+                            .success(false)
+                            .message(e.getMessage())
+                            .build());
         } catch (Exception e) {
             log.error("=== PAYOS CHECKOUT ERROR ===");
             log.error("Error processing PayOS checkout: {}", e.getMessage(), e);
@@ -158,7 +174,7 @@ public class CheckoutController {
                 String fullOrderCode = null;
                 if (orderCode != null) {
                     // PayOS sends numeric orderCode, but our system uses "ORD" prefix
-                    fullOrderCode = "ORD" + orderCode;
+                    fullOrderCode = OrderCodeGenerator.ORDER_PREFIX + orderCode;
                     log.info("Processing payment for order: {} (full code: {})", orderCode, fullOrderCode);
                     orderService.processOrderPayment(fullOrderCode);
                     log.info("Payment processed successfully for order: {}", fullOrderCode);
@@ -1,17 +1,22 @@
 package exe.SonMaiHeritage.controller;
 
 import exe.SonMaiHeritage.entity.Order;
+import exe.SonMaiHeritage.model.DailySalesResponse;
 import exe.SonMaiHeritage.model.OrderResponse;
+import exe.SonMaiHeritage.model.OrderSummaryResponse;
 import exe.SonMaiHeritage.service.OrderService;
+import exe.SonMaiHeritage.service.SalesRollupService;
 import lombok.extern.log4j.Log4j2;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
+import org.springframework.format.annotation.DateTimeFormat;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
+import java.time.LocalDate;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -25,9 +30,11 @@ import java.util.Map;
 public class OrderController {
     
     private final OrderService orderService;
+    private final SalesRollupService salesRollupService;
     
-    public OrderController(OrderService orderService) {
+    public OrderController(OrderService orderService, SalesRollupService salesRollupService) {
         this.orderService = orderService;
+        this.salesRollupService = salesRollupService;
     }
     
     /**
@@ -85,6 +92,20 @@ public class OrderController {
         }
     }
     
+    /**
+     * Get a user's order history, newest first, one page of summaries at a time.
+     * Items are loaded only by the detail endpoints (/{orderId}, /code/{orderCode}).
+     */
+    @GetMapping("/user/{userId}/history")
+    public ResponseEntity<Page<OrderSummaryResponse>> getOrderHistory(
+            @PathVariable Integer userId,
+            @RequestParam(defaultValue = "0") int page,
+            @RequestParam(defaultValue = "10") int size) {
+        Page<OrderSummaryResponse> history = orderService.getOrderHistory(userId, page, size);
+        log.info("Retrieved {} of {} orders for user {}", history.getNumberOfElements(), history.getTotalElements(), userId);
+        return ResponseEntity.ok(history);
+    }
+    
     /**
      * Get orders by status
      */
@@ -194,6 +215,29 @@ public class OrderController {
         }
     }
     
+    /**
+     * Daily order count, revenue and items sold for charts, from the daily_sales rollup.
+     * Without a province each point sums all provinces.
+     */
+    @GetMapping("/statistics/daily")
+    public ResponseEntity<List<DailySalesResponse>> getDailySales(
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate from,
+            @RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate to,
+            @RequestParam(required = false) String province) {
+        try {
+            List<DailySalesResponse> series = salesRollupService.getDailySales(from, to, province);
+            log.info("Retrieved {} daily sales point(s) from {} to {}", series.size(), from, to);
+            return ResponseEntity.ok(series);
+            
+        } catch (IllegalArgumentException e) {
+            log.warn("Invalid daily sales range {} - {}: {}", from, to, e.getMessage());
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("Error retrieving daily sales: {}", e.getMessage());
+            return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).build();
+        }
+    }
+    
     /**
      * Get all orders with detailed information (for admin)
      */
@@ -1,16 +1,31 @@
 package exe.SonMaiHeritage.controller;
 
+import exe.SonMaiHeritage.model.CursorPageResponse;
+import exe.SonMaiHeritage.model.FacetedProductResponse;
+import exe.SonMaiHeritage.model.ProductBatchRequest;
+import exe.SonMaiHeritage.model.ProductBatchResponse;
 import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.model.ProductSearchCriteria;
+import exe.SonMaiHeritage.model.SuggestionResponse;
 import exe.SonMaiHeritage.model.TypeResponse;
+import exe.SonMaiHeritage.service.CatalogPayloadCache;
+import exe.SonMaiHeritage.service.CatalogVersionService;
 import exe.SonMaiHeritage.service.ProductService;
 import exe.SonMaiHeritage.service.TypeService;
+import jakarta.validation.Valid;
 import org.springframework.data.domain.*;
 import org.springframework.data.web.PageableDefault;
+import org.springframework.http.CacheControl;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.function.Supplier;
 
 @RestController
 @RequestMapping("/api/products")
@@ -18,15 +33,25 @@ import java.util.List;
 public class ProductController {
     private final ProductService productService;
     private final TypeService typeService;
+    private final CatalogVersionService catalogVersionService;
+    private final CatalogPayloadCache catalogPayloadCache;
 
-    public ProductController(ProductService productService, TypeService typeService) {
+    public ProductController(ProductService productService, TypeService typeService,
+                             CatalogVersionService catalogVersionService, CatalogPayloadCache catalogPayloadCache) {
         this.productService = productService;
         this.typeService = typeService;
+        this.catalogVersionService = catalogVersionService;
+        this.catalogPayloadCache = catalogPayloadCache;
     }
     @GetMapping("/{id}")
-    public ResponseEntity<ProductResponse> getProductById(@PathVariable("id") Integer productId){
-        ProductResponse productResponse = productService.getProductById(productId);
-        return new ResponseEntity<>(productResponse, HttpStatus.OK);
+    public ResponseEntity<ProductResponse> getProductById(@PathVariable("id") Integer productId, WebRequest webRequest){
+        return conditional(webRequest, () -> productService.getProductById(productId));
+    }
+
+    @PostMapping("/batch")
+    public ResponseEntity<ProductBatchResponse> getProductsByIds(@Valid @RequestBody ProductBatchRequest request){
+        ProductBatchResponse response = productService.getProductsByIds(request.getIds());
+        return new ResponseEntity<>(response, HttpStatus.OK);
     }
 
     @GetMapping()
@@ -34,42 +59,151 @@ public class ProductController {
             @PageableDefault(size = 10)Pageable pageable,
             @RequestParam(name="keyword", required = false) String keyword,
             @RequestParam(name="typeId", required = false) Integer typeId,
+            @RequestParam(name="minPrice", required = false) Long minPrice,
+            @RequestParam(name="maxPrice", required = false) Long maxPrice,
+            @RequestParam(name="inStock", defaultValue = "false") boolean inStock,
             @RequestParam(name="sort", defaultValue = "name") String sort,
             @RequestParam(name = "order", defaultValue = "asc") String order
     ){
+        Sort.Direction direction = "asc".equalsIgnoreCase(order)?Sort.Direction.ASC : Sort.Direction.DESC;
+        Sort sorting = Sort.by(direction, sort);
+        Pageable pageRequest = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sorting);
+
         Page<ProductResponse> productResponsePage;
-        if(typeId!=null) {
-            //search by type
-            List<ProductResponse> productResponses = productService.searchProductsByType(typeId);
-            productResponsePage = new PageImpl<>(productResponses, pageable, productResponses.size());
-        }
-        else if(keyword!=null && !keyword.isEmpty()){
-            List<ProductResponse> productResponses = productService.searchProductsByName(keyword);
-            productResponsePage = new PageImpl<>(productResponses, pageable, productResponses.size());
+        boolean filtered = typeId != null || (keyword != null && !keyword.isBlank())
+                || minPrice != null || maxPrice != null || inStock;
+        if(filtered) {
+            //Any combination of filters is served by one paged criteria query
+            ProductSearchCriteria criteria = toCriteria(keyword, typeId, minPrice, maxPrice, inStock);
+            productResponsePage = productService.searchProducts(criteria, pageRequest);
         }else{
             //If no search criteria, then retrieve based on sorting options
-            Sort.Direction direction = "asc".equalsIgnoreCase(order)?Sort.Direction.ASC : Sort.Direction.DESC;
-            Sort sorting = Sort.by(direction, sort);
-
-            productResponsePage = productService.getProducts(PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), sorting));
+            productResponsePage = productService.getProducts(pageRequest);
         }
         return new ResponseEntity<>(productResponsePage, HttpStatus.OK);
     }
+
+    @GetMapping("/faceted")
+    public ResponseEntity<FacetedProductResponse> getProductsWithFacets(
+            @PageableDefault(size = 10)Pageable pageable,
+            @RequestParam(name="keyword", required = false) String keyword,
+            @RequestParam(name="typeId", required = false) Integer typeId,
+            @RequestParam(name="minPrice", required = false) Long minPrice,
+            @RequestParam(name="maxPrice", required = false) Long maxPrice,
+            @RequestParam(name="inStock", defaultValue = "false") boolean inStock,
+            @RequestParam(name="sort", defaultValue = "name") String sort,
+            @RequestParam(name = "order", defaultValue = "asc") String order
+    ){
+        Sort.Direction direction = "asc".equalsIgnoreCase(order)?Sort.Direction.ASC : Sort.Direction.DESC;
+        Pageable pageRequest = PageRequest.of(pageable.getPageNumber(), pageable.getPageSize(), Sort.by(direction, sort));
+        ProductSearchCriteria criteria = toCriteria(keyword, typeId, minPrice, maxPrice, inStock);
+        FacetedProductResponse response = productService.searchProductsWithFacets(criteria, pageRequest);
+        return new ResponseEntity<>(response, HttpStatus.OK);
+    }
+
+    @GetMapping("/cursor")
+    public ResponseEntity<CursorPageResponse<ProductResponse>> getProductsByCursor(
+            @RequestParam(name = "cursor", required = false) String cursor,
+            @RequestParam(name = "size", defaultValue = "20") int size,
+            @RequestParam(name = "sort", defaultValue = "name") String sort,
+            @RequestParam(name = "order", defaultValue = "asc") String order
+    ){
+        CursorPageResponse<ProductResponse> productResponses = productService.getProductsByCursor(cursor, size, sort, order);
+        return new ResponseEntity<>(productResponses, HttpStatus.OK);
+    }
+
     @GetMapping(value = "/types", produces = "application/json;charset=UTF-8")
-    public ResponseEntity<List<TypeResponse>> getTypes(){
-        List<TypeResponse> typeResponses = typeService.getAllTypes();
-        return new ResponseEntity<>(typeResponses, HttpStatus.OK);
+    public ResponseEntity<List<TypeResponse>> getTypes(WebRequest webRequest){
+        return conditional(webRequest, typeService::getAllTypes);
     }
 
     @GetMapping("/search")
-    public ResponseEntity<List<ProductResponse>> searchProducts(@RequestParam("keyword") String keyword){
-        List<ProductResponse> productResponses = productService.searchProductsByName(keyword);
+    public ResponseEntity<List<ProductResponse>> searchProducts(
+            @RequestParam("keyword") String keyword,
+            @RequestParam(name = "fuzzy", defaultValue = "false") boolean fuzzy){
+        List<ProductResponse> productResponses = fuzzy
+                ? productService.fuzzySearchProducts(keyword)
+                : productService.searchProductsByName(keyword);
         return new ResponseEntity<>(productResponses, HttpStatus.OK);
     }
 
+    //Up to 10 suggestions; larger limits are capped by the service at the trie's top-K size
+    @GetMapping("/suggest")
+    public ResponseEntity<List<SuggestionResponse>> suggest(
+            @RequestParam("prefix") String prefix,
+            @RequestParam(name = "limit", defaultValue = "10") int limit){
+        List<SuggestionResponse> suggestions = productService.suggest(prefix, limit);
+        return new ResponseEntity<>(suggestions, HttpStatus.OK);
+    }
+
     @GetMapping(value = "/all", produces = "application/json;charset=UTF-8")
-    public ResponseEntity<List<ProductResponse>> getAllProducts(){
-        List<ProductResponse> productResponses = productService.getAllProducts();
-        return new ResponseEntity<>(productResponses, HttpStatus.OK);
+    public ResponseEntity<byte[]> getAllProducts(
+            WebRequest webRequest,
+            @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding){
+        //Served from pre-serialized bytes; gzip and identity are distinct representations with distinct tags
+        boolean gzip = acceptsGzip(acceptEncoding);
+        CatalogVersionService.Version version = catalogVersionService.current();
+        String eTag = catalogVersionService.eTagOf(version, gzip ? "gz" : null);
+        if (webRequest.checkNotModified(eTag)) {
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED)
+                    .cacheControl(CacheControl.noCache())
+                    .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                    .build();
+        }
+        CatalogPayloadCache.Payload payload = catalogPayloadCache.get(version);
+        ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+                .contentType(new MediaType(MediaType.APPLICATION_JSON, StandardCharsets.UTF_8))
+                .cacheControl(CacheControl.noCache())
+                .varyBy(HttpHeaders.ACCEPT_ENCODING)
+                .eTag(eTag);
+        if (gzip) {
+            return response.header(HttpHeaders.CONTENT_ENCODING, "gzip").body(payload.getGzip());
+        }
+        return response.body(payload.getJson());
+    }
+
+    /**
+     * Answers If-None-Match from the catalog version alone; the body is only produced when the
+     * client's copy is stale. The version is read first, so a concurrent change can only make the
+     * tag older than the body, never newer. No Last-Modified is sent, since a per-node clock can't
+     * order catalog versions across instances.
+     */
+    private <T> ResponseEntity<T> conditional(WebRequest webRequest, Supplier<T> body) {
+        CatalogVersionService.Version version = catalogVersionService.current();
+        String eTag = catalogVersionService.eTagOf(version);
+        if (webRequest.checkNotModified(eTag)) {
+            // Keep an explicit Cache-Control so Spring Security's default no-store isn't applied to the 304
+            return ResponseEntity.status(HttpStatus.NOT_MODIFIED).cacheControl(CacheControl.noCache()).build();
+        }
+        return ResponseEntity.ok()
+                .cacheControl(CacheControl.noCache())
+                .eTag(eTag)
+                .body(body.get());
+    }
+
+    private static boolean acceptsGzip(String acceptEncoding) {
+        if (acceptEncoding == null) {
+            return false;
+        }
+        for (String coding : acceptEncoding.split(",")) {
+            String[] parts = coding.trim().split(";");
+            if ("gzip".equalsIgnoreCase(parts[0].trim())) {
+                // "gzip;q=0" explicitly refuses it
+                return parts.length < 2 || !parts[1].trim().matches("(?i)q=0(\\.0*)?");
+            }
+        }
+        return false;
+    }
+
+    // Storefront searches never take a status; only ACTIVE products are listed here
+    private ProductSearchCriteria toCriteria(String keyword, Integer typeId, Long minPrice, Long maxPrice,
+                                             boolean inStock) {
+        return ProductSearchCriteria.builder()
+                .keyword(keyword)
+                .typeId(typeId)
+                .minPrice(minPrice)
+                .maxPrice(maxPrice)
+                .inStockOnly(inStock)
+                .build();
     }
 }
@@ -0,0 +1,30 @@
+package exe.SonMaiHeritage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Paid orders folded per confirmation day and shipping province by {@code SalesRollupService}.
+ */
+@Entity
+@Table(name="daily_sales")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class DailySales {
+    @EmbeddedId
+    private DailySalesId id;
+
+    @Column(name="order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name="revenue", nullable = false)
+    private Long revenue;
+
+    @Column(name="items_sold", nullable = false)
+    private Long itemsSold;
+}
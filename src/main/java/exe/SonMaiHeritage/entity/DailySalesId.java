@@ -0,0 +1,22 @@
+package exe.SonMaiHeritage.entity;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Embeddable;
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.io.Serializable;
+import java.time.LocalDate;
+
+@Embeddable
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailySalesId implements Serializable {
+    @Column(name="sales_date")
+    private LocalDate salesDate;
+
+    @Column(name="province", length = 100)
+    private String province;
+}
@@ -0,0 +1,77 @@
+package exe.SonMaiHeritage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * A rendered email waiting to be sent. Written in the same transaction as the change it announces
+ * and delivered afterwards by {@code EmailOutboxService}.
+ */
+@Entity
+@Table(name="email_outbox", indexes = {
+        // Dispatcher poll: due rows of a status, oldest deadline first
+        @Index(name = "idx_email_outbox_status_next", columnList = "status, next_attempt_at")
+})
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class EmailOutbox {
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @Column(name="id")
+    private Long id;
+
+    @Column(name="email_type", length = 50)
+    private String emailType;
+
+    // Business key the email is about, e.g. the order code
+    @Column(name="reference", length = 50)
+    private String reference;
+
+    @Column(name="recipient")
+    private String recipient;
+
+    @Column(name="subject")
+    private String subject;
+
+    // Plain-text part
+    @Column(name="body", columnDefinition = "TEXT")
+    private String body;
+
+    // HTML alternative, null for text-only emails
+    @Column(name="html_body", columnDefinition = "MEDIUMTEXT")
+    private String htmlBody;
+
+    @Enumerated(EnumType.STRING)
+    @Column(name="status", length = 20)
+    private OutboxStatus status;
+
+    @Column(name="attempts", nullable = false)
+    private Integer attempts;
+
+    // Earliest time of the next attempt; while SENDING, the end of the worker's lease
+    @Column(name="next_attempt_at")
+    private LocalDateTime nextAttemptAt;
+
+    @Column(name="last_error", length = 500)
+    private String lastError;
+
+    @Column(name="created_date")
+    private LocalDateTime createdDate;
+
+    @Column(name="sent_date")
+    private LocalDateTime sentDate;
+
+    public enum OutboxStatus {
+        PENDING,  // Waiting for its first attempt or a retry
+        SENDING,  // Claimed by a worker
+        SENT,
+        DEAD      // Gave up after the maximum number of attempts
+    }
+}
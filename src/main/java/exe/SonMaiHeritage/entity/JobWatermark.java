@@ -0,0 +1,35 @@
+package exe.SonMaiHeritage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Progress of an incremental background job: the (timestamp, id) of the last row it has folded.
+ */
+@Entity
+@Table(name="job_watermarks")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class JobWatermark {
+    @Id
+    @Column(name="name", length = 50)
+    private String name;
+
+    @Column(name="processed_until", nullable = false)
+    private LocalDateTime processedUntil;
+
+    @Column(name="last_id", nullable = false)
+    private Integer lastId;
+
+    // Two instances running the same job: the slower one's chunk rolls back instead of double counting
+    @Version
+    @Column(name="version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+}
@@ -11,7 +11,12 @@ import java.time.LocalDateTime;
 import java.util.List;
 
 @Entity
-@Table(name="orders")
+@Table(name="orders", indexes = {
+        // Customer order history: equality on user, newest first
+        @Index(name = "idx_orders_user_created", columnList = "user_id, created_date"),
+        // Keyset scan of newly paid orders by the daily sales rollup
+        @Index(name = "idx_orders_confirmed", columnList = "confirmed_date, id")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -48,6 +53,15 @@ public class Order {
     
     @Column(name="updated_date")
     private LocalDateTime updatedDate;
+
+    // When the payment was confirmed; drives the daily sales rollup
+    @Column(name="confirmed_date")
+    private LocalDateTime confirmedDate;
+
+    // Optimistic lock: concurrent status changes / payment confirmations can't overwrite each other
+    @Version
+    @Column(name="version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
     
     @OneToMany(mappedBy = "order", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
     private List<OrderItem> orderItems;
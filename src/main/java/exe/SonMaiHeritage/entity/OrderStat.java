@@ -0,0 +1,30 @@
+package exe.SonMaiHeritage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running count and amount of the orders currently in one status. Adjusted in the same transaction
+ * as every order insert and status change, so the dashboard reads one row per status.
+ */
+@Entity
+@Table(name="order_stats")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class OrderStat {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name="status", length = 20)
+    private Order.OrderStatus status;
+
+    @Column(name="order_count", nullable = false)
+    private Long orderCount;
+
+    @Column(name="total_amount", nullable = false)
+    private Long totalAmount;
+}
@@ -45,6 +45,10 @@ public class Payment {
     
     @Column(name="updated_date")
     private LocalDateTime updatedDate;
+
+    @Version
+    @Column(name="version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
     
     @Column(name="payment_url")
     private String paymentUrl;
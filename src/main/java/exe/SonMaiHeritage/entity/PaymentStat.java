@@ -0,0 +1,30 @@
+package exe.SonMaiHeritage.entity;
+
+import jakarta.persistence.*;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Running count and amount of the payments currently in one status. Adjusted in the same transaction
+ * as every payment insert and status change, so the payment dashboard reads one row per status.
+ */
+@Entity
+@Table(name="payment_stats")
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class PaymentStat {
+    @Id
+    @Enumerated(EnumType.STRING)
+    @Column(name="status", length = 20)
+    private Payment.PaymentStatus status;
+
+    @Column(name="payment_count", nullable = false)
+    private Long paymentCount;
+
+    @Column(name="total_amount", nullable = false)
+    private Long totalAmount;
+}
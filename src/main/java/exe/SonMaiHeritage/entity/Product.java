@@ -5,9 +5,19 @@ import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Cache;
+import org.hibernate.annotations.CacheConcurrencyStrategy;
 
 @Entity
-@Table(name="Product")
+@Cacheable
+@Cache(usage = CacheConcurrencyStrategy.READ_WRITE)
+@Table(name="Product", indexes = {
+        // Serve ACTIVE listings ordered by name/price (and keyset seeks on them) from the index
+        @Index(name = "idx_product_status_name", columnList = "Status, Name"),
+        @Index(name = "idx_product_status_price", columnList = "Status, Price"),
+        // Faceted storefront filters: status + type, optionally narrowed or ordered by price
+        @Index(name = "idx_product_status_type_price", columnList = "Status, ProductTypeId, Price")
+})
 @Data
 @AllArgsConstructor
 @NoArgsConstructor
@@ -29,6 +39,11 @@ public class Product {
     @Column(name="Quantity")
     private Integer quantity;
 
+    // Optimistic lock; bulk stock UPDATEs bump it as well
+    @Version
+    @Column(name="Version", columnDefinition = "BIGINT NOT NULL DEFAULT 0")
+    private Long version;
+
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name= "ProductTypeId", referencedColumnName = "Id")
     private Type type;
@@ -1,6 +1,7 @@
 package exe.SonMaiHeritage.exceptions;
 
 import exe.SonMaiHeritage.model.CustomErrorResponse;
+import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.ControllerAdvice;
@@ -28,4 +29,23 @@ public class CustomExceptionHandler extends ResponseEntityExceptionHandler {
         CustomErrorResponse customErrorResponse = new CustomErrorResponse(HttpStatus.CONFLICT, "User already exists", ex.getMessage());
         return new ResponseEntity<>(customErrorResponse, HttpStatus.CONFLICT);
     }
+
+    @ExceptionHandler(InvalidCursorException.class)
+    public ResponseEntity<Object> handleInvalidCursorException(InvalidCursorException ex, WebRequest request){
+        CustomErrorResponse customErrorResponse = new CustomErrorResponse(HttpStatus.BAD_REQUEST, "Invalid cursor", ex.getMessage());
+        return new ResponseEntity<>(customErrorResponse, HttpStatus.BAD_REQUEST);
+    }
+
+    @ExceptionHandler(OptimisticLockingFailureException.class)
+    public ResponseEntity<Object> handleOptimisticLockingFailureException(OptimisticLockingFailureException ex, WebRequest request){
+        //Still conflicting after the retries, the client should reload and try again
+        CustomErrorResponse customErrorResponse = new CustomErrorResponse(HttpStatus.CONFLICT, "Concurrent update", ex.getMessage());
+        return new ResponseEntity<>(customErrorResponse, HttpStatus.CONFLICT);
+    }
+
+    @ExceptionHandler(InsufficientStockException.class)
+    public ResponseEntity<Object> handleInsufficientStockException(InsufficientStockException ex, WebRequest request){
+        CustomErrorResponse customErrorResponse = new CustomErrorResponse(HttpStatus.CONFLICT, "Insufficient stock", ex.getMessage());
+        return new ResponseEntity<>(customErrorResponse, HttpStatus.CONFLICT);
+    }
 }
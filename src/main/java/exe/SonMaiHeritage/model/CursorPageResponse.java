@@ -0,0 +1,20 @@
+package exe.SonMaiHeritage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class CursorPageResponse<T> {
+    private List<T> content;
+    private int size;
+    private boolean hasNext;
+    // Opaque token to pass back as ?cursor= for the next slice; null on the last slice
+    private String nextCursor;
+}
@@ -0,0 +1,25 @@
+package exe.SonMaiHeritage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class DailySalesResponse {
+    private LocalDate date;
+    // Null when the point sums all provinces
+    private String province;
+    private Long orderCount;
+    private Long revenue;
+    private Long itemsSold;
+
+    public DailySalesResponse(LocalDate date, Long orderCount, Long revenue, Long itemsSold) {
+        this(date, null, orderCount, revenue, itemsSold);
+    }
+}
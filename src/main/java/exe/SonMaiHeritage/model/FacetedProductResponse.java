@@ -0,0 +1,20 @@
+package exe.SonMaiHeritage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+import org.springframework.data.domain.Page;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class FacetedProductResponse {
+    private Page<ProductResponse> products;
+    // Counts ignore the facet's own filter, so the sidebar still shows the other choices
+    private List<TypeFacet> typeFacets;
+    private List<PriceFacet> priceFacets;
+}
@@ -0,0 +1,29 @@
+package exe.SonMaiHeritage.model;
+
+import com.fasterxml.jackson.annotation.JsonFormat;
+import exe.SonMaiHeritage.entity.Order;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * One row of a customer's order history; items are only loaded by the order detail endpoints.
+ */
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class OrderSummaryResponse {
+    private Integer id;
+    private String orderCode;
+
+    @JsonFormat(pattern = "yyyy-MM-dd'T'HH:mm:ss")
+    private LocalDateTime createdDate;
+
+    private Long totalAmount;
+    private Order.OrderStatus status;
+    private Long itemCount;
+}
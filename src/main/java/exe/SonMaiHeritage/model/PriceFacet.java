@@ -0,0 +1,17 @@
+package exe.SonMaiHeritage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class PriceFacet {
+    // Bounds as taken by the search filter (see ProductSearchCriteria); maxPrice is null for the open-ended top bucket
+    private Long minPrice;
+    private Long maxPrice;
+    private long count;
+}
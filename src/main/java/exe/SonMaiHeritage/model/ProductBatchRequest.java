@@ -0,0 +1,20 @@
+package exe.SonMaiHeritage.model;
+
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@AllArgsConstructor
+@NoArgsConstructor
+@Builder
+public class ProductBatchRequest {
+    @NotEmpty(message = "Ids list cannot be empty")
+    @Size(max = 100, message = "At most 100 ids per batch")
+    private List<Integer> ids;
+}
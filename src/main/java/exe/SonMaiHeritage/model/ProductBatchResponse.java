@@ -0,0 +1,18 @@
+package exe.SonMaiHeritage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductBatchResponse {
+    // In request order, duplicates collapsed to their first occurrence
+    private List<ProductResponse> products;
+    private List<Integer> missingIds;
+}
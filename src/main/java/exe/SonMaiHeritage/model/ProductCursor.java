@@ -0,0 +1,47 @@
+package exe.SonMaiHeritage.model;
+
+import exe.SonMaiHeritage.exceptions.InvalidCursorException;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.data.domain.Sort;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Base64;
+
+/**
+ * Position in a keyset-paginated product listing: the sort it belongs to and the
+ * (sort key, Id) pair of the last row already returned.
+ * Encoded as URL-safe Base64 so clients treat it as an opaque token.
+ */
+@Getter
+@AllArgsConstructor
+public class ProductCursor {
+    private static final String SEPARATOR = ":";
+
+    private final String sort;
+    private final Sort.Direction direction;
+    private final Integer lastId;
+    // Last value of the sort column (null when sorting by id)
+    private final String lastKey;
+
+    public String encode() {
+        String raw = sort + SEPARATOR + direction.name() + SEPARATOR + lastId + SEPARATOR
+                + (lastKey != null ? lastKey : "");
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public static ProductCursor decode(String token) {
+        try {
+            String raw = new String(Base64.getUrlDecoder().decode(token), StandardCharsets.UTF_8);
+            // The key is last and may itself contain the separator
+            String[] parts = raw.split(SEPARATOR, 4);
+            if (parts.length != 4) {
+                throw new InvalidCursorException("Malformed cursor");
+            }
+            return new ProductCursor(parts[0], Sort.Direction.valueOf(parts[1]),
+                    Integer.valueOf(parts[2]), parts[3].isEmpty() ? null : parts[3]);
+        } catch (IllegalArgumentException e) {
+            throw new InvalidCursorException("Malformed cursor", e);
+        }
+    }
+}
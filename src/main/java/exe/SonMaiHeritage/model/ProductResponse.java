@@ -7,10 +7,10 @@ import lombok.Data;
 import lombok.NoArgsConstructor;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 @NoArgsConstructor
-@JsonPropertyOrder({"id", "name", "description", "price", "pictureUrl", "quantity", "productType"})
+@JsonPropertyOrder({"id", "name", "description", "price", "pictureUrl", "quantity", "productType", "productTypeId"})
 public class ProductResponse {
     private Integer id;
     private String name;
@@ -19,4 +19,5 @@ public class ProductResponse {
     private String pictureUrl;
     private Integer quantity;
     private String productType;
+    private Integer productTypeId;
 }
@@ -0,0 +1,24 @@
+package exe.SonMaiHeritage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@Builder(toBuilder = true)
+@AllArgsConstructor
+@NoArgsConstructor
+public class ProductSearchCriteria {
+    private String keyword;
+    private Integer typeId;
+    // Price range is half-open, [minPrice, maxPrice), the same as a PriceFacet bucket, so a facet's bounds
+    // can be passed back as the filter and list exactly the products it counted
+    private Long minPrice;
+    private Long maxPrice;
+    private boolean inStockOnly;
+    // Ids matched by the search index for the keyword; null when the keyword is matched in SQL
+    private List<Integer> productIds;
+}
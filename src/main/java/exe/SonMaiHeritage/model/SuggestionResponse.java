@@ -0,0 +1,22 @@
+package exe.SonMaiHeritage.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@Builder
+@AllArgsConstructor
+@NoArgsConstructor
+public class SuggestionResponse {
+    public enum Kind {
+        PRODUCT, TYPE
+    }
+
+    private String text;
+    private Kind kind;
+    // Set according to kind
+    private Integer productId;
+    private Integer typeId;
+}
@@ -0,0 +1,32 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.DailySales;
+import exe.SonMaiHeritage.entity.DailySalesId;
+import exe.SonMaiHeritage.model.DailySalesResponse;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+@Repository
+public interface DailySalesRepository extends JpaRepository<DailySales, DailySalesId> {
+    @Modifying
+    @Query("UPDATE DailySales d SET d.orderCount = d.orderCount + :orderCount, d.revenue = d.revenue + :revenue, " +
+            "d.itemsSold = d.itemsSold + :itemsSold WHERE d.id.salesDate = :salesDate AND d.id.province = :province")
+    int add(@Param("salesDate") LocalDate salesDate, @Param("province") String province, @Param("orderCount") long orderCount,
+            @Param("revenue") long revenue, @Param("itemsSold") long itemsSold);
+
+    // One point per day across all provinces; the PK (sales_date, province) serves the range
+    @Query("SELECT new exe.SonMaiHeritage.model.DailySalesResponse(d.id.salesDate, SUM(d.orderCount), SUM(d.revenue), SUM(d.itemsSold)) " +
+            "FROM DailySales d WHERE d.id.salesDate BETWEEN :from AND :to GROUP BY d.id.salesDate ORDER BY d.id.salesDate")
+    List<DailySalesResponse> sumByDay(@Param("from") LocalDate from, @Param("to") LocalDate to);
+
+    @Query("SELECT new exe.SonMaiHeritage.model.DailySalesResponse(d.id.salesDate, d.id.province, d.orderCount, d.revenue, d.itemsSold) " +
+            "FROM DailySales d WHERE d.id.province = :province AND d.id.salesDate BETWEEN :from AND :to ORDER BY d.id.salesDate")
+    List<DailySalesResponse> findByProvince(@Param("province") String province,
+                                            @Param("from") LocalDate from, @Param("to") LocalDate to);
+}
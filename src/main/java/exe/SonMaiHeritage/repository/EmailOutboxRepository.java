@@ -0,0 +1,31 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.EmailOutbox;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Repository
+public interface EmailOutboxRepository extends JpaRepository<EmailOutbox, Long> {
+    // PENDING rows whose retry time has come, plus SENDING rows whose worker lease ran out (crash, restart)
+    @Query("SELECT e.id FROM EmailOutbox e WHERE e.status IN ('PENDING', 'SENDING') AND e.nextAttemptAt <= :now " +
+            "ORDER BY e.nextAttemptAt")
+    List<Long> findDueIds(@Param("now") LocalDateTime now, Pageable pageable);
+
+    // Takes a row for one worker; the moved deadline makes any concurrent claim of the same row match nothing
+    @Transactional
+    @Modifying
+    @Query("UPDATE EmailOutbox e SET e.status = 'SENDING', e.attempts = e.attempts + 1, e.nextAttemptAt = :leaseUntil " +
+            "WHERE e.id = :id AND e.status IN ('PENDING', 'SENDING') AND e.nextAttemptAt <= :now")
+    int claim(@Param("id") Long id, @Param("now") LocalDateTime now, @Param("leaseUntil") LocalDateTime leaseUntil);
+
+    @Query("SELECT e.status, COUNT(e) FROM EmailOutbox e GROUP BY e.status")
+    List<Object[]> countGroupedByStatus();
+}
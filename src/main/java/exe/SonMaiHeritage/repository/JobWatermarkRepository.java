@@ -0,0 +1,9 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.JobWatermark;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface JobWatermarkRepository extends JpaRepository<JobWatermark, String> {
+}
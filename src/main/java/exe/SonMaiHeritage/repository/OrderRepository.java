@@ -1,13 +1,18 @@
 package exe.SonMaiHeritage.repository;
 
 import exe.SonMaiHeritage.entity.Order;
+import exe.SonMaiHeritage.model.OrderSummaryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -19,12 +24,66 @@ public interface OrderRepository extends JpaRepository<Order, Integer> {
     List<Order> findByStatus(Order.OrderStatus status);
     List<Order> findByUserIdIsNull();
     Page<Order> findByUserIdIsNull(Pageable pageable);
+
+    // Order history page: walks idx_orders_user_created backwards and counts items only for the rows returned
+    @Query(value = "SELECT new exe.SonMaiHeritage.model.OrderSummaryResponse(o.id, o.orderCode, o.createdDate, o.totalAmount, o.status, " +
+            "(SELECT COUNT(i) FROM OrderItem i WHERE i.order = o)) " +
+            "FROM Order o WHERE o.user.id = :userId ORDER BY o.createdDate DESC, o.id DESC",
+            countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user.id = :userId")
+    Page<OrderSummaryResponse> findHistoryByUserId(@Param("userId") Integer userId, Pageable pageable);
+
+    // Listing variants that load items and user together with the orders instead of one lazy query per order.
+    // Paged listings go in two phases: page the ids (LIMIT is safe without a collection fetch), then fetch
+    // the graph for just those ids; paging a collection fetch directly would happen in memory.
+    @Query(value = "SELECT o.id FROM Order o", countQuery = "SELECT COUNT(o) FROM Order o")
+    Page<Integer> findPageIds(Pageable pageable);
+
+    @Query(value = "SELECT o.id FROM Order o WHERE o.user IS NULL", countQuery = "SELECT COUNT(o) FROM Order o WHERE o.user IS NULL")
+    Page<Integer> findGuestPageIds(Pageable pageable);
+
+    @EntityGraph(attributePaths = {"orderItems", "user"})
+    @Query("SELECT o FROM Order o WHERE o.id IN :ids")
+    List<Order> findWithItemsAndUserByIdIn(@Param("ids") Collection<Integer> ids);
+
+    @EntityGraph(attributePaths = {"orderItems", "user"})
+    @Query("SELECT o FROM Order o")
+    List<Order> findAllWithItemsAndUser();
+
+    @EntityGraph(attributePaths = {"orderItems", "user"})
+    List<Order> findWithItemsAndUserByUserId(Integer userId);
+
+    @EntityGraph(attributePaths = {"orderItems", "user"})
+    List<Order> findWithItemsAndUserByStatus(Order.OrderStatus status);
+
+    @EntityGraph(attributePaths = {"orderItems"})
+    List<Order> findWithItemsByUserIsNull();
     
     @Query("SELECT o FROM Order o WHERE o.status IN ('CONFIRMED', 'SHIPPING', 'DELIVERED')")
     List<Order> findPaidOrders();
     
     long countByStatus(Order.OrderStatus status);
-    
-    @Query("SELECT SUM(o.totalAmount) FROM Order o WHERE o.status IN ('CONFIRMED', 'SHIPPING', 'DELIVERED')")
-    Long sumTotalRevenue();
+
+    // [status, order count, amount] for every status in one pass; source of the order_stats rollup
+    @Query("SELECT o.status, COUNT(o), COALESCE(SUM(o.totalAmount), 0) FROM Order o GROUP BY o.status")
+    List<Object[]> countAndSumByStatus();
+
+    // Next chunk of paid orders after the (confirmedDate, id) watermark, as
+    // [id, confirmedDate, shipProvince, totalAmount, itemsSold] rows
+    @Query("SELECT o.id, o.confirmedDate, o.shipProvince, o.totalAmount, " +
+            "(SELECT COALESCE(SUM(i.quantity), 0) FROM OrderItem i WHERE i.order = o) " +
+            "FROM Order o WHERE o.confirmedDate <= :until " +
+            "AND (o.confirmedDate > :after OR (o.confirmedDate = :after AND o.id > :afterId)) " +
+            "ORDER BY o.confirmedDate, o.id")
+    List<Object[]> findConfirmedSince(@Param("after") LocalDateTime after, @Param("afterId") Integer afterId,
+                                      @Param("until") LocalDateTime until, Pageable pageable);
+
+    // Orders paid before confirmedDate existed: their creation time is the closest record of the payment
+    @Modifying
+    @Query("UPDATE Order o SET o.confirmedDate = o.createdDate WHERE o.confirmedDate IS NULL " +
+            "AND o.status IN ('CONFIRMED', 'SHIPPING', 'DELIVERED')")
+    int backfillConfirmedDate();
+
+    // Units sold per product across paid orders, as [productId, quantity] rows
+    @Query("SELECT i.productId, SUM(i.quantity) FROM OrderItem i WHERE i.order.status IN ('CONFIRMED', 'SHIPPING', 'DELIVERED') GROUP BY i.productId")
+    List<Object[]> sumSoldQuantityByProduct();
 }
@@ -0,0 +1,27 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.Order;
+import exe.SonMaiHeritage.entity.OrderStat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface OrderStatRepository extends JpaRepository<OrderStat, Order.OrderStatus> {
+    // In-place increment: concurrent transitions serialize on the row instead of losing updates
+    @Modifying
+    @Query("UPDATE OrderStat s SET s.orderCount = s.orderCount + :count, s.totalAmount = s.totalAmount + :amount " +
+            "WHERE s.status = :status")
+    int adjust(@Param("status") Order.OrderStatus status, @Param("count") long count, @Param("amount") long amount);
+
+    // Taken by the rebuild: order writes queue behind it instead of being overwritten by its totals
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM OrderStat s")
+    List<OrderStat> findAllForUpdate();
+}
@@ -14,16 +14,13 @@ public interface PaymentRepository extends JpaRepository<Payment, Integer> {
     Optional<Payment> findByPaymentCode(String paymentCode);
     
     List<Payment> findByStatus(Payment.PaymentStatus status);
-    long countByStatus(Payment.PaymentStatus status);
     
     @Query("SELECT p FROM Payment p WHERE p.order.id = :orderId")
     Optional<Payment> findByOrderId(@Param("orderId") Integer orderId);
-    
-    @Query("SELECT SUM(p.amount) FROM Payment p")
-    Long sumTotalAmount();
-    
-    @Query("SELECT SUM(p.amount) FROM Payment p WHERE p.status = :status")
-    Long sumAmountByStatus(@Param("status") Payment.PaymentStatus status);
+
+    // [status, payment count, amount] for every status in one pass; source of the payment_stats rollup
+    @Query("SELECT p.status, COUNT(p), COALESCE(SUM(p.amount), 0) FROM Payment p GROUP BY p.status")
+    List<Object[]> countAndSumByStatus();
     
     @Query("SELECT p FROM Payment p WHERE p.order.user.id = :userId ORDER BY p.createdDate DESC")
     List<Payment> findByOrderUserId(@Param("userId") Integer userId);
@@ -0,0 +1,27 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.Payment;
+import exe.SonMaiHeritage.entity.PaymentStat;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+@Repository
+public interface PaymentStatRepository extends JpaRepository<PaymentStat, Payment.PaymentStatus> {
+    // In-place increment: concurrent status changes serialize on the row instead of losing updates
+    @Modifying
+    @Query("UPDATE PaymentStat s SET s.paymentCount = s.paymentCount + :count, s.totalAmount = s.totalAmount + :amount " +
+            "WHERE s.status = :status")
+    int adjust(@Param("status") Payment.PaymentStatus status, @Param("count") long count, @Param("amount") long amount);
+
+    // Taken by the rebuild: payment writes queue behind it instead of being overwritten by its totals
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("SELECT s FROM PaymentStat s")
+    List<PaymentStat> findAllForUpdate();
+}
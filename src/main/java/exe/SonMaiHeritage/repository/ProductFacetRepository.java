@@ -0,0 +1,13 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.model.PriceFacet;
+import exe.SonMaiHeritage.model.TypeFacet;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.List;
+
+public interface ProductFacetRepository {
+    List<TypeFacet> countByType(Specification<Product> specification);
+    List<PriceFacet> countByPriceBucket(Specification<Product> specification, List<Long> bucketLowerBounds);
+}
@@ -0,0 +1,86 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.entity.Type;
+import exe.SonMaiHeritage.model.PriceFacet;
+import exe.SonMaiHeritage.model.TypeFacet;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Tuple;
+import jakarta.persistence.criteria.CriteriaBuilder;
+import jakarta.persistence.criteria.CriteriaQuery;
+import jakarta.persistence.criteria.Expression;
+import jakarta.persistence.criteria.Join;
+import jakarta.persistence.criteria.Predicate;
+import jakarta.persistence.criteria.Root;
+import jakarta.persistence.criteria.Selection;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Facet aggregates over the same Specifications used by the product search, each computed in a single statement.
+ */
+public class ProductFacetRepositoryImpl implements ProductFacetRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public List<TypeFacet> countByType(Specification<Product> specification) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Join<Product, Type> type = root.join("type");
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        query.multiselect(type.get("id"), type.get("name"), cb.count(root))
+                .groupBy(type.get("id"), type.get("name"))
+                .orderBy(cb.asc(type.get("name")));
+
+        List<TypeFacet> facets = new ArrayList<>();
+        for (Tuple row : entityManager.createQuery(query).getResultList()) {
+            facets.add(new TypeFacet(row.get(0, Integer.class), row.get(1, String.class), row.get(2, Long.class)));
+        }
+        return facets;
+    }
+
+    @Override
+    public List<PriceFacet> countByPriceBucket(Specification<Product> specification, List<Long> bucketLowerBounds) {
+        if (bucketLowerBounds.isEmpty()) {
+            return List.of();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Tuple> query = cb.createTupleQuery();
+        Root<Product> root = query.from(Product.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+
+        // One SUM(CASE WHEN ...) column per bucket: all buckets in a single scan
+        Expression<Long> price = root.get("price");
+        List<Selection<?>> columns = new ArrayList<>();
+        for (int i = 0; i < bucketLowerBounds.size(); i++) {
+            Predicate inBucket = cb.greaterThanOrEqualTo(price, bucketLowerBounds.get(i));
+            if (i + 1 < bucketLowerBounds.size()) {
+                inBucket = cb.and(inBucket, cb.lessThan(price, bucketLowerBounds.get(i + 1)));
+            }
+            columns.add(cb.sum(cb.<Long>selectCase().when(inBucket, 1L).otherwise(0L)));
+        }
+        query.multiselect(columns);
+
+        Tuple row = entityManager.createQuery(query).getSingleResult();
+        List<PriceFacet> facets = new ArrayList<>();
+        for (int i = 0; i < bucketLowerBounds.size(); i++) {
+            Number count = (Number) row.get(i);
+            facets.add(new PriceFacet(
+                    bucketLowerBounds.get(i),
+                    i + 1 < bucketLowerBounds.size() ? bucketLowerBounds.get(i + 1) : null,
+                    count != null ? count.longValue() : 0L));
+        }
+        return facets;
+    }
+}
@@ -0,0 +1,13 @@
+package exe.SonMaiHeritage.repository;
+
+import java.util.SortedMap;
+
+public interface ProductInventoryRepository {
+    /**
+     * Deducts every line in one UPDATE, each guarded by its own stock check. Must run inside a transaction.
+     *
+     * @return number of products actually deducted; less than {@code quantitiesById.size()} means
+     * at least one line was short (or missing) and the caller must roll back
+     */
+    int decrementQuantities(SortedMap<Integer, Integer> quantitiesById);
+}
@@ -0,0 +1,47 @@
+package exe.SonMaiHeritage.repository;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * Multi-line stock deduction as a single CASE-based bulk UPDATE: one round trip per order
+ * instead of one per line. Ids are bound in ascending order, and the primary-key range scan locks
+ * rows in that same order, so concurrent orders over overlapping products can't deadlock.
+ */
+public class ProductInventoryRepositoryImpl implements ProductInventoryRepository {
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public int decrementQuantities(SortedMap<Integer, Integer> quantitiesById) {
+        if (quantitiesById.isEmpty()) {
+            return 0;
+        }
+        StringBuilder amount = new StringBuilder("CASE p.id");
+        List<String> guards = new ArrayList<>(quantitiesById.size());
+        for (int i = 0; i < quantitiesById.size(); i++) {
+            amount.append(" WHEN :id").append(i).append(" THEN :qty").append(i);
+            guards.add("(p.id = :id" + i + " AND p.quantity >= :qty" + i + ")");
+        }
+        amount.append(" ELSE 0 END");
+
+        Query update = entityManager.createQuery(
+                "UPDATE Product p SET p.quantity = p.quantity - " + amount + ", p.version = p.version + 1 WHERE " + String.join(" OR ", guards));
+        int i = 0;
+        for (Map.Entry<Integer, Integer> line : quantitiesById.entrySet()) {
+            update.setParameter("id" + i, line.getKey());
+            update.setParameter("qty" + i, line.getValue());
+            i++;
+        }
+        // Flush pending changes first; the context is deliberately not cleared so the caller's
+        // managed Order survives. Managed Product instances (if any) are stale after this.
+        entityManager.flush();
+        return update.executeUpdate();
+    }
+}
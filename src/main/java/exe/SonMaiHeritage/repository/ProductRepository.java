@@ -1,15 +1,23 @@
 package exe.SonMaiHeritage.repository;
 
 import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.model.ProductResponse;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Optional;
 
 @Repository
-public interface ProductRepository extends JpaRepository<Product,Integer> {
+public interface ProductRepository extends JpaRepository<Product,Integer>, JpaSpecificationExecutor<Product>,
+        ProductFacetRepository, ProductInventoryRepository {
     @Query("SELECT p FROM Product p WHERE LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
     List<Product> searchByName(@Param("keyword") String keyword);
     
@@ -27,7 +35,71 @@ public interface ProductRepository extends JpaRepository<Product,Integer> {
     
     @Query("SELECT p FROM Product p JOIN FETCH p.type WHERE p.status = 'ACTIVE'")
     List<Product> findAllActiveWithType();
+
+    // Storefront reads select straight into ProductResponse: no managed entities, no dirty-checking snapshots
+    String ACTIVE_RESPONSES = "SELECT new exe.SonMaiHeritage.model.ProductResponse(" +
+            "p.id, p.name, p.description, p.price, p.pictureUrl, p.quantity, t.name, t.id) " +
+            "FROM Product p JOIN p.type t WHERE p.status = 'ACTIVE'";
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES)
+    List<ProductResponse> findActiveResponses();
+
+    // LIMIT/OFFSET and ORDER BY are applied in SQL, the count query stays a plain COUNT
+    @Transactional(readOnly = true)
+    @Query(value = ACTIVE_RESPONSES,
+            countQuery = "SELECT COUNT(p) FROM Product p JOIN p.type WHERE p.status = 'ACTIVE'")
+    Page<ProductResponse> findActiveResponses(Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND t.id = :typeId")
+    List<ProductResponse> findActiveResponsesByType(@Param("typeId") Integer typeId);
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND LOWER(p.name) LIKE LOWER(CONCAT('%', :keyword, '%'))")
+    List<ProductResponse> findActiveResponsesByName(@Param("keyword") String keyword);
+
+    // Any status, like findById; LEFT JOIN keeps products without a type
+    @Transactional(readOnly = true)
+    @Query("SELECT new exe.SonMaiHeritage.model.ProductResponse(" +
+            "p.id, p.name, p.description, p.price, p.pictureUrl, p.quantity, t.name, t.id) " +
+            "FROM Product p LEFT JOIN p.type t WHERE p.id IN :ids")
+    List<ProductResponse> findResponsesByIdIn(@Param("ids") Collection<Integer> ids);
+
+    // First page of a keyset scroll: sorted and limited by the Pageable, no count query
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES)
+    List<ProductResponse> findActiveSlice(Pageable pageable);
+
+    // Keyset (seek) queries: continue strictly after the last (sort key, Id) pair of the previous
+    // slice, so the cost of a slice does not grow with how far the client has scrolled
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND (p.name > :name OR (p.name = :name AND p.id > :id)) ORDER BY p.name ASC, p.id ASC")
+    List<ProductResponse> findActiveAfterNameAsc(@Param("name") String name, @Param("id") Integer id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND (p.name < :name OR (p.name = :name AND p.id < :id)) ORDER BY p.name DESC, p.id DESC")
+    List<ProductResponse> findActiveAfterNameDesc(@Param("name") String name, @Param("id") Integer id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND (p.price > :price OR (p.price = :price AND p.id > :id)) ORDER BY p.price ASC, p.id ASC")
+    List<ProductResponse> findActiveAfterPriceAsc(@Param("price") Long price, @Param("id") Integer id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND (p.price < :price OR (p.price = :price AND p.id < :id)) ORDER BY p.price DESC, p.id DESC")
+    List<ProductResponse> findActiveAfterPriceDesc(@Param("price") Long price, @Param("id") Integer id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND p.id > :id ORDER BY p.id ASC")
+    List<ProductResponse> findActiveAfterIdAsc(@Param("id") Integer id, Pageable pageable);
+
+    @Transactional(readOnly = true)
+    @Query(ACTIVE_RESPONSES + " AND p.id < :id ORDER BY p.id DESC")
+    List<ProductResponse> findActiveAfterIdDesc(@Param("id") Integer id, Pageable pageable);
     
+    @Query("SELECT p.quantity FROM Product p WHERE p.id = :id")
+    Optional<Integer> findQuantityById(@Param("id") Integer id);
+
     @Query("SELECT p FROM Product p JOIN FETCH p.type WHERE p.status = :status")
     List<Product> findByStatusWithType(@Param("status") Product.ProductStatus status);
 }
@@ -0,0 +1,87 @@
+package exe.SonMaiHeritage.repository;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.model.ProductSearchCriteria;
+import jakarta.persistence.criteria.JoinType;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Composable filters for product searches, combined into one WHERE clause by {@link #matching}.
+ */
+public final class ProductSpecifications {
+    private ProductSpecifications() {
+    }
+
+    public static Specification<Product> matching(ProductSearchCriteria criteria) {
+        List<Specification<Product>> specifications = new ArrayList<>();
+        specifications.add(fetchType());
+        specifications.add(hasStatus(Product.ProductStatus.ACTIVE));
+        if (criteria.getProductIds() != null) {
+            specifications.add(hasIdIn(criteria.getProductIds()));
+        } else if (criteria.getKeyword() != null && !criteria.getKeyword().isBlank()) {
+            specifications.add(nameContains(criteria.getKeyword().trim()));
+        }
+        if (criteria.getTypeId() != null) {
+            specifications.add(hasType(criteria.getTypeId()));
+        }
+        if (criteria.getMinPrice() != null) {
+            specifications.add(priceAtLeast(criteria.getMinPrice()));
+        }
+        if (criteria.getMaxPrice() != null) {
+            specifications.add(priceBelow(criteria.getMaxPrice()));
+        }
+        if (criteria.isInStockOnly()) {
+            specifications.add(inStock());
+        }
+        return Specification.allOf(specifications);
+    }
+
+    public static Specification<Product> hasStatus(Product.ProductStatus status) {
+        return (root, query, cb) -> cb.equal(root.get("status"), status);
+    }
+
+    public static Specification<Product> hasType(Integer typeId) {
+        return (root, query, cb) -> cb.equal(root.get("type").get("id"), typeId);
+    }
+
+    public static Specification<Product> hasIdIn(Collection<Integer> ids) {
+        return (root, query, cb) -> ids.isEmpty() ? cb.disjunction() : root.get("id").in(ids);
+    }
+
+    // Fallback for when the search index is not ready; the TEXT description is never scanned
+    public static Specification<Product> nameContains(String keyword) {
+        String pattern = "%" + escapeLike(keyword.toLowerCase(Locale.ROOT)) + "%";
+        return (root, query, cb) -> cb.like(cb.lower(root.<String>get("name")), pattern, '\\');
+    }
+
+    public static Specification<Product> priceAtLeast(Long minPrice) {
+        return (root, query, cb) -> cb.greaterThanOrEqualTo(root.<Long>get("price"), minPrice);
+    }
+
+    public static Specification<Product> priceBelow(Long maxPrice) {
+        return (root, query, cb) -> cb.lessThan(root.<Long>get("price"), maxPrice);
+    }
+
+    public static Specification<Product> inStock() {
+        return (root, query, cb) -> cb.greaterThan(root.<Integer>get("quantity"), 0);
+    }
+
+    // Loads the type with the page rows; skipped for count and aggregate queries
+    public static Specification<Product> fetchType() {
+        return (root, query, cb) -> {
+            if (Product.class.equals(query.getResultType())) {
+                root.fetch("type", JoinType.LEFT);
+            }
+            return null;
+        };
+    }
+
+    private static String escapeLike(String value) {
+        return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+}
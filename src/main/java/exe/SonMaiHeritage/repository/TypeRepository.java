@@ -1,12 +1,22 @@
 package exe.SonMaiHeritage.repository;
 
 import exe.SonMaiHeritage.entity.Type;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.stereotype.Repository;
 
+import java.util.List;
 import java.util.Optional;
 
 @Repository
 public interface TypeRepository extends JpaRepository<Type, Integer> {
     Optional<Type> findByName(String name);
+
+    // Served from the query cache; the Type rows themselves come from the entity cache
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_CACHEABLE, value = "true"))
+    @Query("SELECT t FROM Type t ORDER BY t.id")
+    List<Type> findAllCached();
 }
@@ -0,0 +1,48 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.entity.Product;
+import lombok.Getter;
+
+/**
+ * Published after a write to the product catalog so in-memory views can refresh themselves.
+ */
+@Getter
+public class CatalogChangedEvent {
+    public enum ChangeType {
+        PRODUCT_SAVED,   // product created or updated, product holds the saved state
+        PRODUCT_DELETED, // product removed, only productId is set
+        STOCK_CHANGED,   // only the quantity changed (bulk UPDATE), only productId is set
+        RELOAD,          // bulk change (seeding, type changes): rebuild everything
+        REMOTE           // changed on another instance (or outside the app): rebuild local views only
+    }
+
+    private final ChangeType changeType;
+    private final Integer productId;
+    private final Product product;
+
+    private CatalogChangedEvent(ChangeType changeType, Integer productId, Product product) {
+        this.changeType = changeType;
+        this.productId = productId;
+        this.product = product;
+    }
+
+    public static CatalogChangedEvent productSaved(Product product) {
+        return new CatalogChangedEvent(ChangeType.PRODUCT_SAVED, product.getId(), product);
+    }
+
+    public static CatalogChangedEvent productDeleted(Integer productId) {
+        return new CatalogChangedEvent(ChangeType.PRODUCT_DELETED, productId, null);
+    }
+
+    public static CatalogChangedEvent stockChanged(Integer productId) {
+        return new CatalogChangedEvent(ChangeType.STOCK_CHANGED, productId, null);
+    }
+
+    public static CatalogChangedEvent reload() {
+        return new CatalogChangedEvent(ChangeType.RELOAD, null, null);
+    }
+
+    public static CatalogChangedEvent remoteChange() {
+        return new CatalogChangedEvent(ChangeType.REMOTE, null, null);
+    }
+}
@@ -0,0 +1,74 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+/**
+ * An in-memory view over the ACTIVE products. Built at startup and kept current incrementally from
+ * {@link CatalogChangedEvent}s; subclasses only say how to add, drop and re-price a single product.
+ */
+@Slf4j
+public abstract class CatalogIndex {
+    protected final ProductRepository productRepository;
+
+    protected CatalogIndex(ProductRepository productRepository) {
+        this.productRepository = productRepository;
+    }
+
+    public abstract boolean isReady();
+
+    public abstract void index(ProductResponse product);
+
+    public abstract void remove(Integer productId);
+
+    public abstract void rebuild();
+
+    /** Replaces the stored quantity of an indexed product; products not in the index are left out. */
+    protected abstract void updateQuantity(Integer productId, Integer quantity);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // After commit when published inside a transaction, so a rolled-back write never reaches the index
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        try {
+            switch (event.getChangeType()) {
+                case PRODUCT_SAVED:
+                    Product product = event.getProduct();
+                    if (product.getStatus() == Product.ProductStatus.ACTIVE) {
+                        index(ProductMapper.toProductResponse(product));
+                    } else {
+                        remove(product.getId());
+                    }
+                    break;
+                case PRODUCT_DELETED:
+                    remove(event.getProductId());
+                    break;
+                case STOCK_CHANGED:
+                    refreshQuantity(event.getProductId());
+                    break;
+                default:
+                    rebuild();
+            }
+        } catch (Exception e) {
+            // Never fail the admin write because of the index; resync from the DB instead
+            log.error("Failed to apply catalog change to {}, rebuilding: {}", getClass().getSimpleName(), e.getMessage());
+            rebuild();
+        }
+    }
+
+    /** The event carries only the id: the bulk UPDATE behind it never loaded the entity. */
+    protected void refreshQuantity(Integer productId) {
+        productRepository.findQuantityById(productId).ifPresentOrElse(
+                quantity -> updateQuantity(productId, quantity),
+                () -> remove(productId));
+    }
+}
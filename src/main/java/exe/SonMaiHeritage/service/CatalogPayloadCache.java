@@ -0,0 +1,81 @@
+package exe.SonMaiHeritage.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * The full-catalog JSON, serialized once per catalog version and kept as UTF-8 bytes plus a gzip copy.
+ * <p>
+ * Concurrent misses for the same version may each render the payload; the last one wins, which is
+ * harmless because the content is identical.
+ */
+@Service
+@Slf4j
+public class CatalogPayloadCache {
+    private final ProductService productService;
+    private final CatalogVersionService catalogVersionService;
+    private final ObjectMapper objectMapper;
+    private final AtomicReference<Payload> cached = new AtomicReference<>();
+
+    public CatalogPayloadCache(ProductService productService, CatalogVersionService catalogVersionService,
+                               ObjectMapper objectMapper) {
+        this.productService = productService;
+        this.catalogVersionService = catalogVersionService;
+        this.objectMapper = objectMapper;
+    }
+
+    /**
+     * Payload for the given version. The version must be read before calling, so the bytes are
+     * never older than the tag they are served under.
+     */
+    public Payload get(CatalogVersionService.Version version) {
+        Payload payload = cached.get();
+        if (payload != null && payload.getVersion() >= version.getNumber()) {
+            return payload;
+        }
+        payload = render(version.getNumber());
+        cached.set(payload);
+        return payload;
+    }
+
+    private Payload render(long version) {
+        long start = System.nanoTime();
+        try {
+            byte[] json = objectMapper.writeValueAsBytes(productService.getAllProducts());
+            byte[] gzip = gzip(json);
+            log.info("Rendered catalog payload v{}: {} bytes, {} gzipped, in {} ms",
+                    version, json.length, gzip.length, (System.nanoTime() - start) / 1_000_000);
+            return new Payload(version, json, gzip);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("Failed to serialize catalog", e);
+        }
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 4 + 64);
+        try (GZIPOutputStream out = new GZIPOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Payload {
+        private final long version;
+        private final byte[] json;
+        private final byte[] gzip;
+    }
+}
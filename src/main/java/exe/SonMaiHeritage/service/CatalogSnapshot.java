@@ -0,0 +1,126 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.model.ProductResponse;
+import org.springframework.data.domain.Sort;
+
+import java.text.Collator;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Collectors;
+
+/**
+ * Immutable view of the ACTIVE catalog: the products in id order, sorted views built on demand,
+ * plus lookups by id and by type. A new instance is built on every change and swapped in whole.
+ */
+public final class CatalogSnapshot {
+    // Distinct sort orders kept per snapshot; requests beyond that are sorted without being kept
+    private static final int MAX_SORTED_VIEWS = 32;
+    private static final Collator NAME_COLLATOR = Collator.getInstance(new Locale("vi", "VN"));
+    private static final Comparator<String> NAME_ORDER = Comparator.nullsLast(NAME_COLLATOR::compare);
+    private static final Map<String, Comparator<ProductResponse>> PROPERTY_ORDERS = Map.of(
+            "id", Comparator.comparing(ProductResponse::getId),
+            "name", Comparator.comparing(ProductResponse::getName, NAME_ORDER),
+            "price", Comparator.comparing(ProductResponse::getPrice, Comparator.nullsLast(Comparator.<Long>naturalOrder())),
+            "quantity", Comparator.comparing(ProductResponse::getQuantity, Comparator.nullsLast(Comparator.<Integer>naturalOrder())));
+
+    private final List<ProductResponse> inIdOrder;
+    // Products sorted by a full Sort (same order chain as the SQL listing), built on first use
+    private final Map<Sort, List<ProductResponse>> sortedViews = new ConcurrentHashMap<>();
+    private final Map<Integer, ProductResponse> byId;
+    private final Map<Integer, List<ProductResponse>> byType;
+    private final Instant builtAt;
+
+    private CatalogSnapshot(List<ProductResponse> inIdOrder,
+                            Map<Integer, ProductResponse> byId,
+                            Map<Integer, List<ProductResponse>> byType,
+                            Instant builtAt) {
+        this.inIdOrder = inIdOrder;
+        this.byId = byId;
+        this.byType = byType;
+        this.builtAt = builtAt;
+    }
+
+    public static CatalogSnapshot of(List<ProductResponse> products) {
+        List<ProductResponse> inIdOrder = sortedCopy(products, PROPERTY_ORDERS.get("id"));
+        Map<Integer, ProductResponse> byId = new LinkedHashMap<>();
+        inIdOrder.forEach(product -> byId.put(product.getId(), product));
+
+        Map<Integer, List<ProductResponse>> byType = inIdOrder.stream()
+                .filter(product -> product.getProductTypeId() != null)
+                .collect(Collectors.groupingBy(ProductResponse::getProductTypeId, Collectors.toUnmodifiableList()));
+
+        CatalogSnapshot snapshot = new CatalogSnapshot(inIdOrder, Map.copyOf(byId), Map.copyOf(byType), Instant.now());
+        // Pre-build the default storefront order so the first request after a rebuild doesn't sort
+        snapshot.sorted(Sort.by(Sort.Order.asc("name"), Sort.Order.asc("id")));
+        return snapshot;
+    }
+
+    private static List<ProductResponse> sortedCopy(List<ProductResponse> products, Comparator<ProductResponse> comparator) {
+        List<ProductResponse> sorted = new ArrayList<>(products);
+        sorted.sort(comparator);
+        return List.copyOf(sorted);
+    }
+
+    public Optional<ProductResponse> findById(Integer productId) {
+        return Optional.ofNullable(byId.get(productId));
+    }
+
+    /** All ACTIVE products in id order. */
+    public List<ProductResponse> products() {
+        return inIdOrder;
+    }
+
+    /**
+     * Products ordered by every order of {@code sort} in turn, directions included, or null if it
+     * names a property the snapshot can't sort by.
+     */
+    public List<ProductResponse> sorted(Sort sort) {
+        List<ProductResponse> view = sortedViews.get(sort);
+        if (view != null) {
+            return view;
+        }
+        Comparator<ProductResponse> comparator = comparatorFor(sort);
+        if (comparator == null) {
+            return null;
+        }
+        view = sortedCopy(inIdOrder, comparator);
+        if (sortedViews.size() < MAX_SORTED_VIEWS) {
+            sortedViews.putIfAbsent(sort, view);
+        }
+        return view;
+    }
+
+    private static Comparator<ProductResponse> comparatorFor(Sort sort) {
+        Comparator<ProductResponse> comparator = null;
+        for (Sort.Order order : sort) {
+            Comparator<ProductResponse> propertyOrder = PROPERTY_ORDERS.get(order.getProperty());
+            if (propertyOrder == null) {
+                return null;
+            }
+            if (order.isDescending()) {
+                propertyOrder = propertyOrder.reversed();
+            }
+            comparator = comparator == null ? propertyOrder : comparator.thenComparing(propertyOrder);
+        }
+        return comparator;
+    }
+
+    public List<ProductResponse> byType(Integer typeId) {
+        return byType.getOrDefault(typeId, List.of());
+    }
+
+    public int size() {
+        return byId.size();
+    }
+
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+}
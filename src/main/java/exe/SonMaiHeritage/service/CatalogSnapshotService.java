@@ -0,0 +1,161 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.CatalogProperties;
+import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.repository.ProductRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Keeps an immutable snapshot of the ACTIVE catalog in memory so storefront reads don't hit MySQL.
+ * The snapshot is built once at startup and rebuilt in the background whenever a
+ * {@link CatalogChangedEvent} is published; readers keep using the previous snapshot meanwhile.
+ * <p>
+ * Local changes also bump a catalog version shared in Redis. Every instance polls it and, when
+ * another instance has changed the catalog, publishes a {@link CatalogChangedEvent#remoteChange()}
+ * so all local views catch up. Failed rebuilds and snapshots older than the configured maximum age
+ * are rebuilt by the same poll.
+ */
+@Service
+@Slf4j
+public class CatalogSnapshotService {
+    private static final String SHARED_VERSION_KEY = "catalog:version";
+
+    private final ProductRepository productRepository;
+    private final CatalogVersionService catalogVersionService;
+    private final StringRedisTemplate redisTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final CatalogProperties catalogProperties;
+    private final AtomicReference<CatalogSnapshot> snapshot = new AtomicReference<>();
+    // Coalesces bursts of changes into a single pending rebuild
+    private final AtomicBoolean rebuildQueued = new AtomicBoolean();
+    private final ExecutorService rebuildExecutor = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "catalog-snapshot");
+        thread.setDaemon(true);
+        return thread;
+    });
+    // Shared version the current snapshot is known to include
+    private volatile String seenSharedVersion;
+    private volatile boolean lastRebuildFailed;
+
+    public CatalogSnapshotService(ProductRepository productRepository, CatalogVersionService catalogVersionService,
+                                  StringRedisTemplate redisTemplate, ApplicationEventPublisher eventPublisher,
+                                  CatalogProperties catalogProperties) {
+        this.productRepository = productRepository;
+        this.catalogVersionService = catalogVersionService;
+        this.redisTemplate = redisTemplate;
+        this.eventPublisher = eventPublisher;
+        this.catalogProperties = catalogProperties;
+    }
+
+    /** The current snapshot, or empty until the first build has succeeded. */
+    public Optional<CatalogSnapshot> current() {
+        return Optional.ofNullable(snapshot.get());
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        rebuild();
+    }
+
+    // After commit when published inside a transaction, so the rebuild can't read pre-commit rows
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        log.debug("Catalog changed ({}, product {}), scheduling snapshot rebuild", event.getChangeType(), event.getProductId());
+        if (event.getChangeType() != CatalogChangedEvent.ChangeType.REMOTE) {
+            announceChange();
+        }
+        requestRebuild();
+    }
+
+    @Scheduled(fixedDelayString = "${app.catalog.refresh-interval-ms:5000}")
+    public void checkForChanges() {
+        CatalogSnapshot current = snapshot.get();
+        if (current == null || lastRebuildFailed) {
+            requestRebuild();
+            return;
+        }
+        String sharedVersion = readSharedVersion();
+        if (sharedVersion != null && !sharedVersion.equals(seenSharedVersion)) {
+            log.info("Catalog changed on another instance (version {}), refreshing", sharedVersion);
+            seenSharedVersion = sharedVersion;
+            eventPublisher.publishEvent(CatalogChangedEvent.remoteChange());
+        } else if (current.getBuiltAt().plus(catalogProperties.getSnapshotMaxAge()).isBefore(Instant.now())) {
+            log.info("Catalog snapshot older than {}, refreshing", catalogProperties.getSnapshotMaxAge());
+            eventPublisher.publishEvent(CatalogChangedEvent.remoteChange());
+        }
+    }
+
+    public void requestRebuild() {
+        if (rebuildQueued.compareAndSet(false, true)) {
+            rebuildExecutor.execute(() -> {
+                // Clear the flag first so changes landing during this rebuild queue another one
+                rebuildQueued.set(false);
+                rebuild();
+            });
+        }
+    }
+
+    private void rebuild() {
+        try {
+            long start = System.nanoTime();
+            // Read before the products: a change announced after this point triggers another rebuild
+            String sharedVersion = readSharedVersion();
+            List<ProductResponse> products = productRepository.findActiveResponses();
+            snapshot.set(CatalogSnapshot.of(products));
+            if (sharedVersion != null) {
+                seenSharedVersion = sharedVersion;
+            }
+            lastRebuildFailed = false;
+            // Responses rendered from the previous snapshot must not share a tag with this one
+            catalogVersionService.bump();
+            log.info("Catalog snapshot rebuilt with {} ACTIVE products in {} ms",
+                    products.size(), (System.nanoTime() - start) / 1_000_000);
+        } catch (Exception e) {
+            // Keep serving the previous snapshot; the next poll retries
+            lastRebuildFailed = true;
+            log.error("Failed to rebuild catalog snapshot", e);
+        }
+    }
+
+    private void announceChange() {
+        try {
+            redisTemplate.opsForValue().increment(SHARED_VERSION_KEY);
+        } catch (DataAccessException e) {
+            // Other instances still catch up once their snapshot reaches the maximum age
+            log.warn("Failed to announce catalog change: {}", e.getMessage());
+        }
+    }
+
+    // "0" when no change was ever announced, null when Redis is unreachable
+    private String readSharedVersion() {
+        try {
+            return Objects.requireNonNullElse(redisTemplate.opsForValue().get(SHARED_VERSION_KEY), "0");
+        } catch (DataAccessException e) {
+            log.warn("Failed to read shared catalog version: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        rebuildExecutor.shutdownNow();
+    }
+}
@@ -0,0 +1,53 @@
+package exe.SonMaiHeritage.service;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Monotonic version of the storefront catalog, used to answer conditional GETs without reading the catalog.
+ * <p>
+ * The version is bumped on every {@link CatalogChangedEvent} and again when the snapshot
+ * finishes rebuilding, so a response served from a stale snapshot never keeps the latest tag.
+ * The boot epoch in the tag invalidates clients' copies across restarts.
+ */
+@Service
+@Slf4j
+public class CatalogVersionService {
+    private final String epoch = Long.toString(System.currentTimeMillis(), 36);
+    private final AtomicReference<Version> current = new AtomicReference<>(new Version(0));
+
+    public Version current() {
+        return current.get();
+    }
+
+    public String eTagOf(Version version) {
+        return eTagOf(version, null);
+    }
+
+    /** Tag for a variant representation (e.g. a compressed encoding) of the same catalog version. */
+    public String eTagOf(Version version, String variant) {
+        String tag = epoch + "-" + version.getNumber();
+        return "\"" + (variant != null ? tag + "-" + variant : tag) + "\"";
+    }
+
+    public void bump() {
+        Version bumped = current.updateAndGet(previous -> new Version(previous.getNumber() + 1));
+        log.debug("Catalog version bumped to {}", bumped.getNumber());
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        bump();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    public static final class Version {
+        private final long number;
+    }
+}
@@ -0,0 +1,220 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.EmailOutboxProperties;
+import exe.SonMaiHeritage.entity.EmailOutbox;
+import exe.SonMaiHeritage.entity.Order;
+import exe.SonMaiHeritage.repository.EmailOutboxRepository;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Transactional outbox for customer emails, so no request thread waits on the SMTP server.
+ * <p>
+ * Callers render the email and {@link #enqueue} it inside their own transaction: it is stored
+ * only if the business change commits. After commit the row is handed to a bounded worker pool;
+ * a scheduled poll picks up anything that was missed, is due for a retry, or whose worker died.
+ * Failed sends back off exponentially and end up DEAD after the configured number of attempts.
+ */
+@Service
+@Slf4j
+public class EmailOutboxService {
+    public static final String ORDER_CONFIRMATION = "ORDER_CONFIRMATION";
+    public static final String ORDER_SHIPPING = "ORDER_SHIPPING";
+    public static final String ORDER_CANCELLATION = "ORDER_CANCELLATION";
+
+    private final EmailOutboxRepository emailOutboxRepository;
+    private final EmailService emailService;
+    private final EmailOutboxProperties properties;
+    private final ThreadPoolExecutor workers;
+
+    public EmailOutboxService(EmailOutboxRepository emailOutboxRepository, EmailService emailService,
+                              EmailOutboxProperties properties) {
+        this.emailOutboxRepository = emailOutboxRepository;
+        this.emailService = emailService;
+        this.properties = properties;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.workers = new ThreadPoolExecutor(properties.getWorkers(), properties.getWorkers(), 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(properties.getQueueCapacity()), runnable -> {
+                    Thread thread = new Thread(runnable, "email-outbox-" + threadCount.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+    }
+
+    /** Stores the confirmation email of a new order; a no-op when the order has no email address. */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueOrderConfirmation(Order order) {
+        if (order.getShipEmail() == null || order.getShipEmail().isBlank()) {
+            return;
+        }
+        enqueue(ORDER_CONFIRMATION, order.getOrderCode(), emailService.renderOrderConfirmation(order));
+    }
+
+    /** Stores the customer notice for a status change, if the new status has one (shipping, cancellation). */
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueueStatusNotice(Order order, Order.OrderStatus previousStatus) {
+        if (order.getStatus() == previousStatus || order.getShipEmail() == null || order.getShipEmail().isBlank()) {
+            return;
+        }
+        if (order.getStatus() == Order.OrderStatus.SHIPPING) {
+            enqueue(ORDER_SHIPPING, order.getOrderCode(), emailService.renderShippingNotice(order));
+        } else if (order.getStatus() == Order.OrderStatus.CANCELLED) {
+            enqueue(ORDER_CANCELLATION, order.getOrderCode(), emailService.renderCancellationNotice(order));
+        }
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void enqueue(String emailType, String reference, EmailService.RenderedEmail message) {
+        LocalDateTime now = LocalDateTime.now();
+        EmailOutbox email = emailOutboxRepository.save(EmailOutbox.builder()
+                .emailType(emailType)
+                .reference(reference)
+                .recipient(message.to())
+                .subject(message.subject())
+                .body(message.text())
+                .htmlBody(message.html())
+                .status(EmailOutbox.OutboxStatus.PENDING)
+                .attempts(0)
+                .nextAttemptAt(now)
+                .createdDate(now)
+                .build());
+        Long id = email.getId();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                submit(id);
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.mail.outbox.poll-interval-ms:10000}")
+    public void dispatchDue() {
+        int capacity = workers.getQueue().remainingCapacity();
+        if (capacity == 0) {
+            return;
+        }
+        try {
+            List<Long> due = emailOutboxRepository.findDueIds(LocalDateTime.now(), PageRequest.of(0, capacity));
+            due.forEach(this::submit);
+        } catch (DataAccessException e) {
+            log.warn("Email outbox poll failed: {}", e.getMessage());
+        }
+    }
+
+    /** Number of outbox rows per status, for the admin metrics endpoint. */
+    public Map<EmailOutbox.OutboxStatus, Long> countByStatus() {
+        Map<EmailOutbox.OutboxStatus, Long> counts = new EnumMap<>(EmailOutbox.OutboxStatus.class);
+        for (EmailOutbox.OutboxStatus status : EmailOutbox.OutboxStatus.values()) {
+            counts.put(status, 0L);
+        }
+        for (Object[] row : emailOutboxRepository.countGroupedByStatus()) {
+            counts.put((EmailOutbox.OutboxStatus) row[0], ((Number) row[1]).longValue());
+        }
+        return counts;
+    }
+
+    /** Puts a DEAD email back in the queue with a fresh attempt budget. */
+    @Transactional
+    public boolean retry(Long id) {
+        return emailOutboxRepository.findById(id)
+                .filter(email -> email.getStatus() == EmailOutbox.OutboxStatus.DEAD)
+                .map(email -> {
+                    email.setStatus(EmailOutbox.OutboxStatus.PENDING);
+                    email.setAttempts(0);
+                    email.setNextAttemptAt(LocalDateTime.now());
+                    email.setLastError(null);
+                    return true;
+                })
+                .orElse(false);
+    }
+
+    private void submit(Long id) {
+        try {
+            workers.execute(() -> deliver(id));
+        } catch (RejectedExecutionException e) {
+            // Pool saturated: the row stays PENDING and the next poll picks it up
+            log.debug("Email outbox workers busy, leaving email {} for the next poll", id);
+        }
+    }
+
+    private void deliver(Long id) {
+        try {
+            LocalDateTime now = LocalDateTime.now();
+            if (emailOutboxRepository.claim(id, now, now.plus(properties.getLease())) == 0) {
+                return; // Sent, not yet due, or taken by another worker
+            }
+            EmailOutbox email = emailOutboxRepository.findById(id).orElse(null);
+            if (email == null) {
+                return;
+            }
+            try {
+                emailService.send(new EmailService.RenderedEmail(
+                        email.getRecipient(), email.getSubject(), email.getBody(), email.getHtmlBody()));
+                markSent(email);
+            } catch (Exception e) {
+                markFailed(email, e);
+            }
+        } catch (DataAccessException e) {
+            // The lease runs out and the row is retried
+            log.warn("Email outbox bookkeeping failed for email {}: {}", id, e.getMessage());
+        }
+    }
+
+    private void markSent(EmailOutbox email) {
+        email.setStatus(EmailOutbox.OutboxStatus.SENT);
+        email.setSentDate(LocalDateTime.now());
+        email.setLastError(null);
+        emailOutboxRepository.save(email);
+        log.info("Sent {} email for {} to {}", email.getEmailType(), email.getReference(), email.getRecipient());
+    }
+
+    private void markFailed(EmailOutbox email, Exception e) {
+        String error = e.getMessage() != null ? e.getMessage() : e.getClass().getSimpleName();
+        email.setLastError(error.length() > 500 ? error.substring(0, 500) : error);
+        if (email.getAttempts() >= properties.getMaxAttempts()) {
+            email.setStatus(EmailOutbox.OutboxStatus.DEAD);
+            log.error("Giving up on {} email for {} after {} attempts: {}",
+                    email.getEmailType(), email.getReference(), email.getAttempts(), error);
+        } else {
+            email.setStatus(EmailOutbox.OutboxStatus.PENDING);
+            email.setNextAttemptAt(LocalDateTime.now().plus(backoff(email.getAttempts())));
+            log.warn("Failed to send {} email for {} (attempt {}), retrying at {}: {}",
+                    email.getEmailType(), email.getReference(), email.getAttempts(), email.getNextAttemptAt(), error);
+        }
+        emailOutboxRepository.save(email);
+    }
+
+    // Doubles per attempt up to the cap, with +/-20% jitter so a mail server outage doesn't end in a burst
+    private Duration backoff(int attempts) {
+        long initial = properties.getInitialBackoff().toMillis();
+        long max = properties.getMaxBackoff().toMillis();
+        long delay = attempts >= 31 ? max : Math.min(max, initial << (attempts - 1));
+        long jitter = delay / 5;
+        return Duration.ofMillis(delay - jitter + ThreadLocalRandom.current().nextLong(2 * jitter + 1));
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        workers.shutdownNow();
+    }
+}
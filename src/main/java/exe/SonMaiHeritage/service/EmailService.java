@@ -2,76 +2,128 @@ package exe.SonMaiHeritage.service;
 
 import exe.SonMaiHeritage.entity.Order;
 import exe.SonMaiHeritage.entity.OrderItem;
+import jakarta.annotation.PostConstruct;
 import lombok.RequiredArgsConstructor;
+import lombok.Value;
 import lombok.extern.slf4j.Slf4j;
-import org.springframework.mail.SimpleMailMessage;
-import org.springframework.mail.javamail.JavaMailSender;
 import org.springframework.mail.javamail.MimeMessageHelper;
 import org.springframework.stereotype.Service;
-import jakarta.mail.MessagingException;
-import jakarta.mail.internet.MimeMessage;
+import org.thymeleaf.TemplateEngine;
+import org.thymeleaf.context.Context;
+
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
 import java.text.NumberFormat;
+import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.List;
 import java.util.Locale;
+import java.util.stream.Collectors;
 
+/**
+ * Renders customer emails from the templates under {@code templates/email} (an HTML and a plain-text
+ * part each) and sends them through the {@link MailDispatcher}.
+ */
 @Service
 @RequiredArgsConstructor
 @Slf4j
 public class EmailService {
     
-    private final JavaMailSender mailSender;
+    private static final String FROM_ADDRESS = "noreply@sonmaiheritage.com";
     
+    private static final Locale VIETNAMESE = Locale.of("vi", "VN");
+    private static final DateTimeFormatter DATE_TIME_FORMAT = DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm");
+    // NumberFormat isn't thread-safe; one per rendering thread instead of one per price
+    private static final ThreadLocal<NumberFormat> PRICE_FORMAT =
+            ThreadLocal.withInitial(() -> NumberFormat.getCurrencyInstance(VIETNAMESE));
+    // Sized for a typical rendered email so the buffer rarely has to grow
+    private static final int RENDER_BUFFER_SIZE = 4096;
     
-    public void sendSimpleOrderConfirmationEmail(Order order) {
-        try {
-            log.info("Sending simple order confirmation email to: {}", order.getShipEmail());
-            
-            SimpleMailMessage message = new SimpleMailMessage();
-            message.setTo(order.getShipEmail());
-            message.setSubject("Xác nhận đơn hàng #" + order.getOrderCode() + " - Son Mai Heritage");
-            message.setFrom("noreply@sonmaiheritage.com");
-            
-            StringBuilder emailContent = new StringBuilder();
-            emailContent.append("Xin chào ").append(order.getShipFullName()).append(",\n\n");
-            emailContent.append("Cảm ơn bạn đã đặt hàng tại Son Mai Heritage!\n\n");
-            emailContent.append("Thông tin đơn hàng:\n");
-            emailContent.append("Mã đơn hàng: ").append(order.getOrderCode()).append("\n");
-            emailContent.append("Ngày đặt: ").append(order.getCreatedDate().format(DateTimeFormatter.ofPattern("dd/MM/yyyy HH:mm"))).append("\n");
-            emailContent.append("Trạng thái: ").append(getStatusText(order.getStatus())).append("\n\n");
-            
-            emailContent.append("Sản phẩm đã đặt:\n");
-            for (OrderItem item : order.getOrderItems()) {
-                emailContent.append("- ").append(item.getProductName())
-                    .append(" x").append(item.getQuantity())
-                    .append(" = ").append(formatPrice(item.getTotalPrice())).append("\n");
-            }
-            
-            emailContent.append("\nTổng tiền: ").append(formatPrice(order.getTotalAmount())).append("\n\n");
-            
-            emailContent.append("Thông tin giao hàng:\n");
-            emailContent.append("Họ tên: ").append(order.getShipFullName()).append("\n");
-            emailContent.append("Số điện thoại: ").append(order.getShipPhone()).append("\n");
-            emailContent.append("Email: ").append(order.getShipEmail()).append("\n");
-            emailContent.append("Địa chỉ: ").append(buildShippingAddress(order)).append("\n\n");
-            
-            if (order.getNote() != null && !order.getNote().trim().isEmpty()) {
-                emailContent.append("Ghi chú: ").append(order.getNote()).append("\n\n");
+    private final MailDispatcher mailDispatcher;
+    private final TemplateEngine emailTemplateEngine;
+    
+    /** A rendered email, ready to be stored in the outbox or sent. */
+    public record RenderedEmail(String to, String subject, String text, String html) {
+    }
+    
+    /** One order line as shown in the templates. */
+    @Value
+    public static class EmailLine {
+        String name;
+        Integer quantity;
+        String total;
+    }
+    
+    // Parse every template once at startup so the first customer email doesn't pay for it
+    @PostConstruct
+    public void warmUpTemplates() {
+        long start = System.nanoTime();
+        Order sample = Order.builder()
+                .orderCode("WARMUP")
+                .status(Order.OrderStatus.PENDING)
+                .totalAmount(0L)
+                .createdDate(LocalDateTime.now())
+                .shipEmail(FROM_ADDRESS)
+                .orderItems(List.of(OrderItem.builder().productName("-").quantity(1).totalPrice(0L).build()))
+                .build();
+        renderOrderConfirmation(sample);
+        renderShippingNotice(sample);
+        renderCancellationNotice(sample);
+        log.info("Email templates compiled in {} ms", (System.nanoTime() - start) / 1_000_000);
+    }
+    
+    /** Sends an already rendered email, e.g. one taken from the email outbox, over the pooled connection. */
+    public void send(RenderedEmail email) {
+        mailDispatcher.send(mimeMessage -> {
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, email.html() != null, StandardCharsets.UTF_8.name());
+            helper.setFrom(FROM_ADDRESS);
+            helper.setTo(email.to());
+            helper.setSubject(email.subject());
+            if (email.html() != null) {
+                helper.setText(email.text(), email.html());
+            } else {
+                helper.setText(email.text());
             }
-            
-            emailContent.append("Chúng tôi sẽ liên hệ với bạn trong thời gian sớm nhất để xác nhận đơn hàng.\n\n");
-            emailContent.append("Trân trọng,\n");
-            emailContent.append("Son Mai Heritage Team");
-            
-            message.setText(emailContent.toString());
-            mailSender.send(message);
-            
-            log.info("Simple order confirmation email sent successfully to: {}", order.getShipEmail());
-            
-        } catch (Exception e) {
-            log.error("Failed to send simple order confirmation email to: {}, error: {}", 
-                order.getShipEmail(), e.getMessage());
-            throw new RuntimeException("Failed to send email: " + e.getMessage());
-        }
+        });
+    }
+    
+    /** Renders the confirmation email; needs the order's items loaded. */
+    public RenderedEmail renderOrderConfirmation(Order order) {
+        return render("order-confirmation", order,
+                "Xác nhận đơn hàng #" + order.getOrderCode() + " - Son Mai Heritage");
+    }
+    
+    public RenderedEmail renderShippingNotice(Order order) {
+        return render("order-shipping", order,
+                "Đơn hàng #" + order.getOrderCode() + " đang được giao - Son Mai Heritage");
+    }
+    
+    public RenderedEmail renderCancellationNotice(Order order) {
+        return render("order-cancellation", order,
+                "Đơn hàng #" + order.getOrderCode() + " đã được hủy - Son Mai Heritage");
+    }
+    
+    private RenderedEmail render(String template, Order order, String subject) {
+        Context context = new Context(VIETNAMESE);
+        context.setVariable("order", order);
+        context.setVariable("createdDate", order.getCreatedDate() != null ? order.getCreatedDate().format(DATE_TIME_FORMAT) : "");
+        context.setVariable("status", getStatusText(order.getStatus()));
+        context.setVariable("items", order.getOrderItems().stream()
+                .map(item -> new EmailLine(item.getProductName(), item.getQuantity(), formatPrice(item.getTotalPrice())))
+                .collect(Collectors.toList()));
+        context.setVariable("totalAmount", formatPrice(order.getTotalAmount()));
+        context.setVariable("address", buildShippingAddress(order));
+        context.setVariable("note", order.getNote() != null && !order.getNote().trim().isEmpty() ? order.getNote() : null);
+        
+        return new RenderedEmail(order.getShipEmail(), subject,
+                process("text/" + template, context), process("html/" + template, context));
+    }
+    
+    private String process(String template, Context context) {
+        // A fresh buffer per render: a per-thread one would keep the largest email ever rendered on every request thread
+        StringWriter buffer = new StringWriter(RENDER_BUFFER_SIZE);
+        emailTemplateEngine.process(template, context, buffer);
+        return buffer.toString();
     }
     
     private String buildShippingAddress(Order order) {
@@ -82,11 +134,13 @@ public class EmailService {
     }
     
     private String formatPrice(Long price) {
-        NumberFormat formatter = NumberFormat.getCurrencyInstance(new Locale("vi", "VN"));
-        return formatter.format(price);
+        return PRICE_FORMAT.get().format(price != null ? price : 0L);
     }
     
     private String getStatusText(Order.OrderStatus status) {
+        if (status == null) {
+            return "Không xác định";
+        }
         switch (status) {
             case PENDING: return "Chờ xử lý";
             case CONFIRMED: return "Đã xác nhận";
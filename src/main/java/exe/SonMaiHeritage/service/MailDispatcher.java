@@ -0,0 +1,265 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.MailDispatcherProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import jakarta.mail.MessagingException;
+import jakarta.mail.SendFailedException;
+import jakarta.mail.Transport;
+import jakarta.mail.internet.MimeMessage;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.mail.MailException;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSender;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Sends mail over a long-lived SMTP connection instead of one connection (STARTTLS + login) per message.
+ * <p>
+ * Messages are queued and a single thread sends them in batches on a {@link Transport} it keeps open
+ * between batches, reconnecting when the server has dropped it and closing it after a quiet period.
+ * All transport state is confined to that thread.
+ */
+@Component
+@Slf4j
+public class MailDispatcher {
+    private final JavaMailSender mailSender;
+    private final MailDispatcherProperties properties;
+    private final BlockingQueue<PendingMail> queue;
+    private final Thread thread;
+    private volatile boolean running = true;
+
+    // Dispatcher thread only
+    private Transport transport;
+    private long lastUsedNanos;
+
+    private final long startedAtMillis = System.currentTimeMillis();
+    private final LongAdder sent = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder connections = new LongAdder();
+    private final LongAdder reconnects = new LongAdder();
+
+    public MailDispatcher(JavaMailSender mailSender, MailDispatcherProperties properties) {
+        this.mailSender = mailSender;
+        this.properties = properties;
+        this.queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+        this.thread = new Thread(this::run, "mail-dispatcher");
+        this.thread.setDaemon(true);
+    }
+
+    @PostConstruct
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Queues a message and waits for the outcome. A message still queued when the wait times out is
+     * withdrawn, so a caller that sees the failure (and retries) never has it sent later as well; one
+     * already being sent is waited for, which the SMTP socket timeouts keep bounded.
+     */
+    public void send(MimeMessagePreparator preparator) {
+        PendingMail pending = enqueue(preparator);
+        try {
+            try {
+                pending.future().get(properties.getSendTimeout().toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException e) {
+                if (withdraw(pending)) {
+                    throw new MailSendException("Timed out waiting for the mail dispatcher");
+                }
+                pending.future().get();
+            }
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof MailException mailException) {
+                throw mailException;
+            }
+            throw new MailSendException("Failed to send email: " + e.getCause().getMessage(), e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            withdraw(pending);
+            throw new MailSendException("Interrupted while waiting for the mail dispatcher");
+        }
+    }
+
+    private PendingMail enqueue(MimeMessagePreparator preparator) {
+        PendingMail pending = new PendingMail(preparator);
+        if (!running || !queue.offer(pending)) {
+            pending.take();
+            pending.future().completeExceptionally(new MailSendException("Mail queue is full or shut down"));
+        }
+        return pending;
+    }
+
+    // False when the dispatcher has already started sending the message
+    private boolean withdraw(PendingMail pending) {
+        if (!pending.take()) {
+            return false;
+        }
+        queue.remove(pending);
+        pending.future().cancel(false);
+        return true;
+    }
+
+    public Map<String, Object> metrics() {
+        long sentCount = sent.sum();
+        long batchCount = batches.sum();
+        double uptimeSeconds = Math.max(1, System.currentTimeMillis() - startedAtMillis) / 1000.0;
+        Map<String, Object> metrics = new LinkedHashMap<>();
+        metrics.put("sent", sentCount);
+        metrics.put("failed", failed.sum());
+        metrics.put("batches", batchCount);
+        metrics.put("averageBatchSize", batchCount > 0 ? (double) (sentCount + failed.sum()) / batchCount : 0.0);
+        metrics.put("messagesPerSecond", sentCount / uptimeSeconds);
+        metrics.put("connections", connections.sum());
+        metrics.put("reconnects", reconnects.sum());
+        metrics.put("queued", queue.size());
+        return metrics;
+    }
+
+    private void run() {
+        List<PendingMail> batch = new ArrayList<>(properties.getBatchSize());
+        while (running) {
+            try {
+                PendingMail first = queue.poll(1, TimeUnit.SECONDS);
+                if (first == null) {
+                    closeIfIdle();
+                    continue;
+                }
+                batch.add(first);
+                fillBatch(batch);
+                sendBatch(batch);
+            } catch (InterruptedException e) {
+                break;
+            } catch (RuntimeException e) {
+                log.error("Mail dispatcher error: {}", e.getMessage());
+                batch.forEach(pending -> pending.future().completeExceptionally(e));
+            } finally {
+                batch.clear();
+            }
+        }
+        closeTransport();
+        PendingMail pending;
+        while ((pending = queue.poll()) != null) {
+            pending.future().completeExceptionally(new MailSendException("Mail dispatcher shut down"));
+        }
+    }
+
+    private void fillBatch(List<PendingMail> batch) throws InterruptedException {
+        queue.drainTo(batch, properties.getBatchSize() - batch.size());
+        long deadline = System.nanoTime() + properties.getLinger().toNanos();
+        while (batch.size() < properties.getBatchSize()) {
+            long remaining = deadline - System.nanoTime();
+            if (remaining <= 0) {
+                return;
+            }
+            PendingMail next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+            if (next == null) {
+                return;
+            }
+            batch.add(next);
+            queue.drainTo(batch, properties.getBatchSize() - batch.size());
+        }
+    }
+
+    private void sendBatch(List<PendingMail> batch) {
+        batches.increment();
+        for (PendingMail pending : batch) {
+            if (!pending.take()) {
+                continue; // Withdrawn by a caller that stopped waiting
+            }
+            try {
+                if (mailSender instanceof JavaMailSenderImpl senderImpl) {
+                    sendOverTransport(senderImpl, pending.preparator());
+                } else {
+                    mailSender.send(pending.preparator());
+                }
+                sent.increment();
+                pending.future().complete(null);
+            } catch (Exception e) {
+                failed.increment();
+                pending.future().completeExceptionally(e);
+            }
+        }
+        lastUsedNanos = System.nanoTime();
+        log.debug("Sent mail batch of {} message(s)", batch.size());
+    }
+
+    private void sendOverTransport(JavaMailSenderImpl senderImpl, MimeMessagePreparator preparator) throws Exception {
+        MimeMessage mimeMessage = senderImpl.createMimeMessage();
+        preparator.prepare(mimeMessage);
+        mimeMessage.saveChanges();
+        try {
+            connectedTransport(senderImpl).sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+        } catch (SendFailedException e) {
+            // The server refused this message's recipients; the connection itself is fine
+            throw e;
+        } catch (MessagingException e) {
+            // Most likely a connection the server closed on us: reconnect and try once more
+            log.info("SMTP connection failed ({}), reconnecting", e.getMessage());
+            reconnects.increment();
+            closeTransport();
+            connectedTransport(senderImpl).sendMessage(mimeMessage, mimeMessage.getAllRecipients());
+        }
+    }
+
+    private Transport connectedTransport(JavaMailSenderImpl senderImpl) throws MessagingException {
+        if (transport == null || !transport.isConnected()) {
+            closeTransport();
+            Transport newTransport = senderImpl.getSession().getTransport(senderImpl.getProtocol());
+            newTransport.connect(senderImpl.getHost(), senderImpl.getPort(), senderImpl.getUsername(), senderImpl.getPassword());
+            transport = newTransport;
+            connections.increment();
+        }
+        return transport;
+    }
+
+    private void closeIfIdle() {
+        if (transport != null && System.nanoTime() - lastUsedNanos > properties.getIdleTimeout().toNanos()) {
+            log.debug("Closing idle SMTP connection");
+            closeTransport();
+        }
+    }
+
+    private void closeTransport() {
+        if (transport != null) {
+            try {
+                transport.close();
+            } catch (MessagingException e) {
+                log.debug("Error closing SMTP connection: {}", e.getMessage());
+            }
+            transport = null;
+        }
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        running = false;
+        thread.interrupt();
+    }
+
+    // Taken exactly once: either by the dispatcher to send it or by the caller to withdraw it
+    private record PendingMail(MimeMessagePreparator preparator, CompletableFuture<Void> future, AtomicBoolean taken) {
+        PendingMail(MimeMessagePreparator preparator) {
+            this(preparator, new CompletableFuture<>(), new AtomicBoolean());
+        }
+
+        boolean take() {
+            return taken.compareAndSet(false, true);
+        }
+    }
+}
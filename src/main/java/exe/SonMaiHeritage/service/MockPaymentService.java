@@ -42,9 +42,7 @@ public class MockPaymentService {
             
             // Update payment status to SUCCESS
             Payment payment = paymentService.getPaymentByCode(paymentCode);
-            payment.setStatus(Payment.PaymentStatus.SUCCESS);
-            payment.setUpdatedDate(java.time.LocalDateTime.now());
-            paymentService.createPayment(payment);
+            paymentService.updatePaymentStatus(payment.getId(), Payment.PaymentStatus.SUCCESS);
             
             log.info("Mock payment processed successfully for order: {}", order.getOrderCode());
             return true;
@@ -0,0 +1,67 @@
+package exe.SonMaiHeritage.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Supplier;
+
+/**
+ * Runs a read-modify-write in its own transaction and re-runs it from a fresh read when a
+ * concurrent writer bumped an entity's {@code @Version} first.
+ * <p>
+ * Inside an existing transaction the action runs once: the outer persistence context already
+ * holds the stale state, so only the outermost caller can retry meaningfully.
+ */
+@Component
+@Slf4j
+public class OptimisticLockRetrier {
+    private static final int MAX_ATTEMPTS = 4;
+    private static final long BASE_BACKOFF_MS = 20;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public OptimisticLockRetrier(PlatformTransactionManager transactionManager) {
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    public <T> T execute(String operation, Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return transactionTemplate.execute(status -> action.get());
+            } catch (OptimisticLockingFailureException e) {
+                if (attempt >= MAX_ATTEMPTS) {
+                    log.warn("{} still conflicting after {} attempts, giving up", operation, attempt);
+                    throw e;
+                }
+                log.info("{} hit a concurrent update (attempt {}), retrying", operation, attempt);
+                backoff(attempt);
+            }
+        }
+    }
+
+    public void run(String operation, Runnable action) {
+        execute(operation, () -> {
+            action.run();
+            return null;
+        });
+    }
+
+    // Exponential backoff with full jitter so colliding writers don't retry in lockstep
+    private static void backoff(int attempt) {
+        long ceiling = BASE_BACKOFF_MS << (attempt - 1);
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextLong(ceiling / 2, ceiling + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while retrying", e);
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package exe.SonMaiHeritage.service;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Snowflake-style ids for order and payment codes: 41 bits of milliseconds since 2024-01-01,
+ * 5 bits of node id and a 7-bit per-millisecond sequence.
+ * <p>
+ * The 53-bit total keeps every id at or below 2^53 - 1, the largest numeric {@code orderCode}
+ * PayOS accepts, so {@code "ORD" + id} can still be stripped back to a number.
+ * Ids are issued with a CAS on the packed (timestamp, sequence) state: no locks, no spinning.
+ * When the sequence of a millisecond runs out, or the clock steps backwards, issuing continues
+ * from the last timestamp used, so ids stay unique and increasing on this node.
+ */
+@Component
+public class OrderCodeGenerator {
+    public static final String ORDER_PREFIX = "ORD";
+    public static final String PAYMENT_PREFIX = "PAY";
+
+    private static final long EPOCH_MS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 5;
+    private static final int SEQUENCE_BITS = 7;
+    private static final long MAX_NODE_ID = (1L << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    private final long nodeId;
+    // (millis since EPOCH_MS << SEQUENCE_BITS) | sequence of the last id issued
+    private final AtomicLong lastState = new AtomicLong();
+
+    public OrderCodeGenerator(@Value("${app.id.node-id:0}") long nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("app.id.node-id must be between 0 and " + MAX_NODE_ID + ", was " + nodeId);
+        }
+        this.nodeId = nodeId;
+    }
+
+    public long nextId() {
+        while (true) {
+            long now = System.currentTimeMillis() - EPOCH_MS;
+            long previous = lastState.get();
+            long previousMillis = previous >>> SEQUENCE_BITS;
+            long next;
+            if (now > previousMillis) {
+                next = now << SEQUENCE_BITS;
+            } else if ((previous & SEQUENCE_MASK) < SEQUENCE_MASK) {
+                // Same millisecond, or the clock went back: keep counting on the last timestamp
+                next = previous + 1;
+            } else {
+                // Sequence exhausted: borrow the next millisecond instead of waiting for it
+                next = (previousMillis + 1) << SEQUENCE_BITS;
+            }
+            if (lastState.compareAndSet(previous, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | (nodeId << SEQUENCE_BITS) | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    public String nextOrderCode() {
+        return ORDER_PREFIX + nextId();
+    }
+
+    /** Payment codes embed the order code after an underscore, which PayOSServiceImpl relies on. */
+    public String nextPaymentCode(String orderCode) {
+        return PAYMENT_PREFIX + nextId() + "_" + orderCode;
+    }
+}
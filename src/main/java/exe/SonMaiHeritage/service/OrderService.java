@@ -4,6 +4,7 @@ import exe.SonMaiHeritage.controller.OrderController;
 import exe.SonMaiHeritage.entity.Order;
 import exe.SonMaiHeritage.model.CheckoutRequest;
 import exe.SonMaiHeritage.model.OrderResponse;
+import exe.SonMaiHeritage.model.OrderSummaryResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
@@ -18,6 +19,7 @@ public interface OrderService {
     Page<Order> getAllOrders(Pageable pageable);
     Order getOrderById(Integer orderId);
     List<Order> getOrdersByUserId(Integer userId);
+    Page<OrderSummaryResponse> getOrderHistory(Integer userId, int page, int size);
     List<Order> getOrdersByStatus(Order.OrderStatus status);
     List<Order> getPaidOrders();
     List<Order> getGuestOrders();
@@ -4,41 +4,65 @@ import exe.SonMaiHeritage.controller.OrderController;
 import exe.SonMaiHeritage.entity.Order;
 import exe.SonMaiHeritage.entity.OrderItem;
 import exe.SonMaiHeritage.entity.User;
+import exe.SonMaiHeritage.exceptions.InsufficientStockException;
 import exe.SonMaiHeritage.model.CheckoutRequest;
 import exe.SonMaiHeritage.model.OrderResponse;
+import exe.SonMaiHeritage.model.OrderSummaryResponse;
 import exe.SonMaiHeritage.repository.OrderRepository;
 import exe.SonMaiHeritage.repository.UserRepository;
-import exe.SonMaiHeritage.service.EmailService;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.LocalDateTime;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.function.Function;
 import java.util.stream.Collectors;
 
 @Service
 @Slf4j
 public class OrderServiceImpl implements OrderService {
+    private static final int MAX_HISTORY_PAGE_SIZE = 50;
     
     private final OrderRepository orderRepository;
     private final UserRepository userRepository;
     private final ProductService productService;
-    private final EmailService emailService;
+    private final EmailOutboxService emailOutboxService;
+    private final StockReservationService stockReservationService;
+    private final OptimisticLockRetrier optimisticLockRetrier;
+    private final OrderCodeGenerator orderCodeGenerator;
+    private final OrderStatsService orderStatsService;
+    private final TransactionTemplate transactionTemplate;
     
-    public OrderServiceImpl(OrderRepository orderRepository, UserRepository userRepository, ProductService productService, EmailService emailService) {
+    public OrderServiceImpl(OrderRepository orderRepository, UserRepository userRepository, ProductService productService,
+                            EmailOutboxService emailOutboxService, StockReservationService stockReservationService,
+                            OptimisticLockRetrier optimisticLockRetrier, OrderCodeGenerator orderCodeGenerator,
+                            OrderStatsService orderStatsService, PlatformTransactionManager transactionManager) {
         this.orderRepository = orderRepository;
         this.userRepository = userRepository;
         this.productService = productService;
-        this.emailService = emailService;
+        this.emailOutboxService = emailOutboxService;
+        this.stockReservationService = stockReservationService;
+        this.optimisticLockRetrier = optimisticLockRetrier;
+        this.orderCodeGenerator = orderCodeGenerator;
+        this.orderStatsService = orderStatsService;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
     
     @Override
     public Order createOrder(CheckoutRequest checkoutRequest) {
         log.info("Creating order for user: {}", checkoutRequest.getUserId());
         
-        String orderCode = "ORD" + System.currentTimeMillis();
+        String orderCode = orderCodeGenerator.nextOrderCode();
         
         List<OrderItem> orderItems = checkoutRequest.getItems().stream()
                 .map(item -> OrderItem.builder()
@@ -81,18 +105,30 @@ public class OrderServiceImpl implements OrderService {
         // Set order reference in order items
         orderItems.forEach(item -> item.setOrder(order));
         
-        Order savedOrder = orderRepository.save(order);
-        log.info("Order created successfully with code: {}", savedOrder.getOrderCode());
+        // Hold the stock until payment; a sold-out line fails here, before anything is written
+        Map<Integer, Integer> quantities = new HashMap<>();
+        for (OrderItem item : orderItems) {
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        boolean reserved = stockReservationService.reserve(orderCode, quantities);
         
-        // Send confirmation email
+        Order savedOrder;
         try {
-            emailService.sendSimpleOrderConfirmationEmail(savedOrder);
-            log.info("Order confirmation email sent successfully for order: {}", savedOrder.getOrderCode());
-        } catch (Exception e) {
-            log.error("Failed to send order confirmation email for order: {}, error: {}", 
-                savedOrder.getOrderCode(), e.getMessage());
-            // Don't fail the order creation if email fails
+            // The order row, its order_stats increment and its confirmation email commit together
+            savedOrder = transactionTemplate.execute(status -> {
+                Order created = orderRepository.save(order);
+                orderStatsService.recordCreated(created);
+                emailOutboxService.enqueueOrderConfirmation(created);
+                return created;
+            });
+        } catch (RuntimeException e) {
+            if (reserved) {
+                stockReservationService.release(orderCode);
+            }
+            throw e;
         }
+        // The confirmation email was queued with the order and is sent in the background
+        log.info("Order created successfully with code: {}", savedOrder.getOrderCode());
         
         return savedOrder;
     }
@@ -107,17 +143,29 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public void updateOrderStatus(String orderCode, Order.OrderStatus status) {
         log.info("Updating order status for code: {} to {}", orderCode, status);
-        Order order = getOrderByCode(orderCode);
-        order.setStatus(status);
-        order.setUpdatedDate(LocalDateTime.now());
-        orderRepository.save(order);
-        log.info("Order status updated successfully");
+        Order order = optimisticLockRetrier.execute("Update status of order " + orderCode, () -> {
+            Order current = getOrderByCode(orderCode);
+            Order.OrderStatus previousStatus = current.getStatus();
+            current.setStatus(status);
+            current.setUpdatedDate(LocalDateTime.now());
+            markConfirmedIfNowPaid(current, previousStatus);
+            Order saved = orderRepository.save(current);
+            orderStatsService.recordTransition(saved, previousStatus);
+            emailOutboxService.enqueueStatusNotice(saved, previousStatus);
+            releaseReservationIfCancelled(saved, previousStatus);
+            return saved;
+        });
+        log.info("Order status updated successfully: {} -> {}", order.getOrderCode(), order.getStatus());
     }
     
     @Override
     public Page<Order> getAllOrders(Pageable pageable) {
         log.info("Retrieving all orders with pagination");
-        return orderRepository.findAll(pageable);
+        if (pageable.isUnpaged()) {
+            List<Order> orders = orderRepository.findAllWithItemsAndUser();
+            return new PageImpl<>(orders, pageable, orders.size());
+        }
+        return loadPage(orderRepository.findPageIds(pageable));
     }
     
     @Override
@@ -130,13 +178,21 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public List<Order> getOrdersByUserId(Integer userId) {
         log.info("Retrieving orders for user ID: {}", userId);
-        return orderRepository.findByUserId(userId);
+        return orderRepository.findWithItemsAndUserByUserId(userId);
+    }
+    
+    @Override
+    @Transactional(readOnly = true)
+    public Page<OrderSummaryResponse> getOrderHistory(Integer userId, int page, int size) {
+        log.info("Retrieving order history for user ID: {}, page: {}", userId, page);
+        Pageable pageable = PageRequest.of(Math.max(page, 0), Math.max(1, Math.min(size, MAX_HISTORY_PAGE_SIZE)));
+        return orderRepository.findHistoryByUserId(userId, pageable);
     }
     
     @Override
     public List<Order> getOrdersByStatus(Order.OrderStatus status) {
         log.info("Retrieving orders by status: {}", status);
-        return orderRepository.findByStatus(status);
+        return orderRepository.findWithItemsAndUserByStatus(status);
     }
     
     @Override
@@ -148,67 +204,106 @@ public class OrderServiceImpl implements OrderService {
     @Override
     public List<Order> getGuestOrders() {
         log.info("Retrieving guest orders");
-        return orderRepository.findByUserIdIsNull();
+        return orderRepository.findWithItemsByUserIsNull();
     }
     
     @Override
     public Page<Order> getGuestOrders(Pageable pageable) {
         log.info("Retrieving guest orders with pagination");
-        return orderRepository.findByUserIdIsNull(pageable);
+        return loadPage(orderRepository.findGuestPageIds(pageable));
+    }
+
+    // Second phase of a paged listing: one query for the page's orders with items and user, kept in page order
+    private Page<Order> loadPage(Page<Integer> idPage) {
+        if (idPage.isEmpty()) {
+            return new PageImpl<>(List.of(), idPage.getPageable(), idPage.getTotalElements());
+        }
+        Map<Integer, Order> ordersById = orderRepository.findWithItemsAndUserByIdIn(idPage.getContent()).stream()
+                .collect(Collectors.toMap(Order::getId, Function.identity(), (first, duplicate) -> first));
+        List<Order> orders = idPage.getContent().stream()
+                .map(ordersById::get)
+                .filter(Objects::nonNull)
+                .collect(Collectors.toList());
+        return new PageImpl<>(orders, idPage.getPageable(), idPage.getTotalElements());
     }
     
     @Override
     public Order updateOrderStatus(Integer orderId, Order.OrderStatus status) {
         log.info("Updating order {} status to {}", orderId, status);
-        Order order = getOrderById(orderId);
-        order.setStatus(status);
-        order.setUpdatedDate(LocalDateTime.now());
-        return orderRepository.save(order);
+        return optimisticLockRetrier.execute("Update status of order " + orderId, () -> {
+            Order order = getOrderById(orderId);
+            Order.OrderStatus previousStatus = order.getStatus();
+            order.setStatus(status);
+            order.setUpdatedDate(LocalDateTime.now());
+            markConfirmedIfNowPaid(order, previousStatus);
+            Order savedOrder = orderRepository.save(order);
+            orderStatsService.recordTransition(savedOrder, previousStatus);
+            emailOutboxService.enqueueStatusNotice(savedOrder, previousStatus);
+            releaseReservationIfCancelled(savedOrder, previousStatus);
+            return savedOrder;
+        });
+    }
+
+    // An admin moving a DIRECT order out of PENDING is its confirmation, so the sales rollup must see it too
+    private void markConfirmedIfNowPaid(Order order, Order.OrderStatus previousStatus) {
+        if (order.getConfirmedDate() == null && !OrderStatsService.isPaid(previousStatus)
+                && OrderStatsService.isPaid(order.getStatus())) {
+            order.setConfirmedDate(order.getUpdatedDate());
+        }
+    }
+
+    // Only unpaid orders hold a reservation; paid ones have already been deducted in MySQL
+    private void releaseReservationIfCancelled(Order order, Order.OrderStatus previousStatus) {
+        if (order.getStatus() == Order.OrderStatus.CANCELLED && previousStatus == Order.OrderStatus.PENDING) {
+            stockReservationService.releaseAfterCommit(order.getOrderCode());
+        }
     }
     
     @Override
     public OrderController.OrderStatistics getOrderStatistics() {
         log.info("Calculating order statistics");
         
-        long totalOrders = orderRepository.count();
-        long paidOrders = orderRepository.findPaidOrders().size();
-        long pendingOrders = orderRepository.countByStatus(Order.OrderStatus.PENDING);
-        long cancelledOrders = orderRepository.countByStatus(Order.OrderStatus.CANCELLED);
-        
-        Long totalRevenue = orderRepository.sumTotalRevenue();
-        
-        return new OrderController.OrderStatistics(
-                totalOrders,
-                paidOrders,
-                pendingOrders,
-                cancelledOrders,
-                totalRevenue != null ? totalRevenue : 0L
-        );
+        return orderStatsService.getStatistics();
     }
 
     @Override
     public void processOrderPayment(String orderCode) {
+        // Return redirect and webhook may race on the same order: the loser's deduction rolls back
+        // with its stale Order version, and the retry sees the order already paid
+        optimisticLockRetrier.run("Process payment of order " + orderCode, () -> confirmOrderPayment(orderCode));
+    }
+
+    private void confirmOrderPayment(String orderCode) {
         log.info("Processing payment for order: {}", orderCode);
         Order order = getOrderByCode(orderCode);
+        if ("SUCCESS".equals(order.getPaymentStatus())) {
+            log.info("Payment for order {} already processed, skipping", orderCode);
+            return;
+        }
         
         // Update order status to CONFIRMED
+        Order.OrderStatus previousStatus = order.getStatus();
         order.setStatus(Order.OrderStatus.CONFIRMED);
         order.setPaymentStatus("SUCCESS");
         order.setUpdatedDate(LocalDateTime.now());
+        order.setConfirmedDate(order.getUpdatedDate());
         
-        // Subtract product quantities
+        // Subtract product quantities: all lines in one statement, all-or-nothing with the status change
+        Map<Integer, Integer> quantities = new HashMap<>();
         for (OrderItem item : order.getOrderItems()) {
-            try {
-                productService.updateProductQuantity(item.getProductId(), item.getQuantity());
-                log.info("Updated quantity for product ID: {}, subtracted: {}", item.getProductId(), item.getQuantity());
-            } catch (Exception e) {
-                log.error("Failed to update quantity for product ID: {}, error: {}", item.getProductId(), e.getMessage());
-                // You might want to handle this differently based on business requirements
-                throw new RuntimeException("Failed to update product inventory: " + e.getMessage());
-            }
+            quantities.merge(item.getProductId(), item.getQuantity(), Integer::sum);
+        }
+        try {
+            productService.deductInventory(quantities);
+        } catch (InsufficientStockException e) {
+            log.error("Failed to update inventory for order: {}, error: {}", orderCode, e.getMessage());
+            throw e;
         }
+        // The units are now gone from MySQL, so the Redis hold ends once this commits
+        stockReservationService.confirmAfterCommit(orderCode, quantities.keySet());
         
         orderRepository.save(order);
+        orderStatsService.recordTransition(order, previousStatus);
         log.info("Order payment processed successfully: {}", orderCode);
     }
 
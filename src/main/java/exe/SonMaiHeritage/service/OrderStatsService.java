@@ -0,0 +1,145 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.controller.OrderController;
+import exe.SonMaiHeritage.entity.Order;
+import exe.SonMaiHeritage.entity.OrderStat;
+import exe.SonMaiHeritage.repository.OrderRepository;
+import exe.SonMaiHeritage.repository.OrderStatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Maintains the {@code order_stats} rollup: one row per order status with the number of orders
+ * in it and their total amount. Order writes adjust it inside their own transaction, so the
+ * rollup commits or rolls back together with the order row.
+ */
+@Service
+@Slf4j
+public class OrderStatsService {
+    // Statuses counted as paid (and as revenue) on the dashboard
+    private static final Set<Order.OrderStatus> PAID_STATUSES =
+            EnumSet.of(Order.OrderStatus.CONFIRMED, Order.OrderStatus.SHIPPING, Order.OrderStatus.DELIVERED);
+
+    private final OrderStatRepository orderStatRepository;
+    private final OrderRepository orderRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public OrderStatsService(OrderStatRepository orderStatRepository, OrderRepository orderRepository,
+                             PlatformTransactionManager transactionManager) {
+        this.orderStatRepository = orderStatRepository;
+        this.orderRepository = orderRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    static boolean isPaid(Order.OrderStatus status) {
+        return PAID_STATUSES.contains(status);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Order order) {
+        adjust(order.getStatus(), 1, amountOf(order));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Order order, Order.OrderStatus previousStatus) {
+        if (previousStatus == order.getStatus()) {
+            return;
+        }
+        long amount = amountOf(order);
+        adjust(previousStatus, -1, -amount);
+        adjust(order.getStatus(), 1, amount);
+    }
+
+    @Transactional(readOnly = true)
+    public OrderController.OrderStatistics getStatistics() {
+        long totalOrders = 0;
+        long paidOrders = 0;
+        long totalRevenue = 0;
+        Map<Order.OrderStatus, Long> counts = new EnumMap<>(Order.OrderStatus.class);
+        for (OrderStat stat : orderStatRepository.findAll()) {
+            counts.put(stat.getStatus(), stat.getOrderCount());
+            totalOrders += stat.getOrderCount();
+            if (isPaid(stat.getStatus())) {
+                paidOrders += stat.getOrderCount();
+                totalRevenue += stat.getTotalAmount();
+            }
+        }
+        return new OrderController.OrderStatistics(
+                totalOrders,
+                paidOrders,
+                counts.getOrDefault(Order.OrderStatus.PENDING, 0L),
+                counts.getOrDefault(Order.OrderStatus.CANCELLED, 0L),
+                totalRevenue
+        );
+    }
+
+    /**
+     * Recomputes every row from the orders table with a single GROUP BY, to heal drift from writes
+     * that bypassed the service (seeding, manual SQL). Runs in its own transaction even when called
+     * from inside this class.
+     */
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> recompute());
+    }
+
+    // Every node starts here, so only an empty rollup is backfilled; a populated one is kept current by the order writes
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (orderStatRepository.count() == 0) {
+                    recompute();
+                }
+            });
+        } catch (Exception e) {
+            // Statistics read whatever rows exist; the next rebuild will catch up
+            log.error("Failed to backfill order stats", e);
+        }
+    }
+
+    // The rows are locked before the orders are counted, so an order write still in flight waits and then
+    // applies its increment on top of the new totals. The GROUP BY is the first plain read, so it sees
+    // every order write that committed before the locks were granted.
+    private void recompute() {
+        orderStatRepository.findAllForUpdate();
+        Map<Order.OrderStatus, OrderStat> stats = new EnumMap<>(Order.OrderStatus.class);
+        for (Order.OrderStatus status : Order.OrderStatus.values()) {
+            stats.put(status, new OrderStat(status, 0L, 0L));
+        }
+        List<Object[]> rows = orderRepository.countAndSumByStatus();
+        for (Object[] row : rows) {
+            if (row[0] != null) {
+                stats.put((Order.OrderStatus) row[0],
+                        new OrderStat((Order.OrderStatus) row[0], ((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
+            }
+        }
+        orderStatRepository.saveAll(stats.values());
+        log.info("Order stats rebuilt: {}", stats.values());
+    }
+
+    private void adjust(Order.OrderStatus status, long count, long amount) {
+        if (status == null) {
+            return;
+        }
+        if (orderStatRepository.adjust(status, count, amount) == 0) {
+            // Row not backfilled yet; the startup rebuild creates one per status
+            orderStatRepository.save(new OrderStat(status, count, amount));
+        }
+    }
+
+    private static long amountOf(Order order) {
+        return order.getTotalAmount() != null ? order.getTotalAmount() : 0L;
+    }
+}
@@ -35,7 +35,7 @@ public class PayOSServiceImpl implements PayOSService {
             
             // Extract order code
             String orderCode = paymentCode.split("_")[1];
-            Long numericOrderCode = Long.parseLong(orderCode.substring(3));
+            Long numericOrderCode = Long.parseLong(orderCode.substring(OrderCodeGenerator.ORDER_PREFIX.length()));
             
             // Create ItemData for PayOS SDK
             ItemData itemData = ItemData.builder()
@@ -11,7 +11,9 @@ import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.stream.Collectors;
 
@@ -20,9 +22,14 @@ import java.util.stream.Collectors;
 public class PaymentServiceImpl implements PaymentService {
     
     private final PaymentRepository paymentRepository;
+    private final OptimisticLockRetrier optimisticLockRetrier;
+    private final PaymentStatsService paymentStatsService;
     
-    public PaymentServiceImpl(PaymentRepository paymentRepository) {
+    public PaymentServiceImpl(PaymentRepository paymentRepository, OptimisticLockRetrier optimisticLockRetrier,
+                              PaymentStatsService paymentStatsService) {
         this.paymentRepository = paymentRepository;
+        this.optimisticLockRetrier = optimisticLockRetrier;
+        this.paymentStatsService = paymentStatsService;
     }
     
     @Override
@@ -68,39 +75,32 @@ public class PaymentServiceImpl implements PaymentService {
     @Override
     public PaymentController.PaymentStatistics getPaymentStatistics() {
         log.info("Calculating payment statistics");
-        
-        long totalPayments = paymentRepository.count();
-        long successfulPayments = paymentRepository.countByStatus(Payment.PaymentStatus.SUCCESS);
-        long failedPayments = paymentRepository.countByStatus(Payment.PaymentStatus.FAILED);
-        long pendingPayments = paymentRepository.countByStatus(Payment.PaymentStatus.PENDING);
-        
-        Long totalAmount = paymentRepository.sumTotalAmount();
-        Long successfulAmount = paymentRepository.sumAmountByStatus(Payment.PaymentStatus.SUCCESS);
-        
-        return new PaymentController.PaymentStatistics(
-                totalPayments,
-                successfulPayments,
-                failedPayments,
-                pendingPayments,
-                totalAmount != null ? totalAmount : 0L,
-                successfulAmount != null ? successfulAmount : 0L
-        );
+        //Served from the payment_stats rollup: one row per status instead of scanning payments
+        return paymentStatsService.getStatistics();
     }
     
     @Override
+    @Transactional
     public Payment createPayment(Payment payment) {
         log.info("Creating new payment with code: {}", payment.getPaymentCode());
-        return paymentRepository.save(payment);
+        Payment savedPayment = paymentRepository.save(payment);
+        paymentStatsService.recordCreated(savedPayment);
+        return savedPayment;
     }
     
     @Override
     public Payment updatePaymentStatus(Integer paymentId, Payment.PaymentStatus status) {
         log.info("Updating payment {} status to {}", paymentId, status);
         
-        Payment payment = getPaymentById(paymentId);
-        payment.setStatus(status);
-        
-        return paymentRepository.save(payment);
+        return optimisticLockRetrier.execute("Update status of payment " + paymentId, () -> {
+            Payment payment = getPaymentById(paymentId);
+            Payment.PaymentStatus previousStatus = payment.getStatus();
+            payment.setStatus(status);
+            payment.setUpdatedDate(LocalDateTime.now());
+            Payment savedPayment = paymentRepository.save(payment);
+            paymentStatsService.recordTransition(savedPayment, previousStatus);
+            return savedPayment;
+        });
     }
     
     @Override
@@ -0,0 +1,132 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.controller.PaymentController;
+import exe.SonMaiHeritage.entity.Payment;
+import exe.SonMaiHeritage.entity.PaymentStat;
+import exe.SonMaiHeritage.repository.PaymentRepository;
+import exe.SonMaiHeritage.repository.PaymentStatRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Maintains the {@code payment_stats} rollup: one row per payment status with the number of payments
+ * in it and their total amount, so the payment dashboard never scans the payments table. Mirrors
+ * {@link OrderStatsService}: payment writes adjust it inside their own transaction.
+ */
+@Service
+@Slf4j
+public class PaymentStatsService {
+    private final PaymentStatRepository paymentStatRepository;
+    private final PaymentRepository paymentRepository;
+    private final TransactionTemplate transactionTemplate;
+
+    public PaymentStatsService(PaymentStatRepository paymentStatRepository, PaymentRepository paymentRepository,
+                               PlatformTransactionManager transactionManager) {
+        this.paymentStatRepository = paymentStatRepository;
+        this.paymentRepository = paymentRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordCreated(Payment payment) {
+        adjust(payment.getStatus(), 1, amountOf(payment));
+    }
+
+    @Transactional(propagation = Propagation.MANDATORY)
+    public void recordTransition(Payment payment, Payment.PaymentStatus previousStatus) {
+        if (previousStatus == payment.getStatus()) {
+            return;
+        }
+        long amount = amountOf(payment);
+        adjust(previousStatus, -1, -amount);
+        adjust(payment.getStatus(), 1, amount);
+    }
+
+    @Transactional(readOnly = true)
+    public PaymentController.PaymentStatistics getStatistics() {
+        long totalPayments = 0;
+        long totalAmount = 0;
+        Map<Payment.PaymentStatus, PaymentStat> stats = new EnumMap<>(Payment.PaymentStatus.class);
+        for (PaymentStat stat : paymentStatRepository.findAll()) {
+            stats.put(stat.getStatus(), stat);
+            totalPayments += stat.getPaymentCount();
+            totalAmount += stat.getTotalAmount();
+        }
+        PaymentStat successful = stats.get(Payment.PaymentStatus.SUCCESS);
+        return new PaymentController.PaymentStatistics(
+                totalPayments,
+                countOf(stats.get(Payment.PaymentStatus.SUCCESS)),
+                countOf(stats.get(Payment.PaymentStatus.FAILED)),
+                countOf(stats.get(Payment.PaymentStatus.PENDING)),
+                totalAmount,
+                successful != null ? successful.getTotalAmount() : 0L
+        );
+    }
+
+    /**
+     * Recomputes every row from the payments table with a single GROUP BY, to heal drift from writes
+     * that bypassed the service. Runs in its own transaction even when called from inside this class.
+     */
+    public void rebuild() {
+        transactionTemplate.executeWithoutResult(status -> recompute());
+    }
+
+    // Every node starts here, so only an empty rollup is backfilled; a populated one is kept current by the payment writes
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        try {
+            transactionTemplate.executeWithoutResult(status -> {
+                if (paymentStatRepository.count() == 0) {
+                    recompute();
+                }
+            });
+        } catch (Exception e) {
+            // Statistics read whatever rows exist; the next rebuild will catch up
+            log.error("Failed to backfill payment stats", e);
+        }
+    }
+
+    // Same locking as the order_stats rebuild: in-flight payment writes wait and then apply on top of the new totals
+    private void recompute() {
+        paymentStatRepository.findAllForUpdate();
+        Map<Payment.PaymentStatus, PaymentStat> stats = new EnumMap<>(Payment.PaymentStatus.class);
+        for (Payment.PaymentStatus status : Payment.PaymentStatus.values()) {
+            stats.put(status, new PaymentStat(status, 0L, 0L));
+        }
+        for (Object[] row : paymentRepository.countAndSumByStatus()) {
+            if (row[0] != null) {
+                stats.put((Payment.PaymentStatus) row[0],
+                        new PaymentStat((Payment.PaymentStatus) row[0], ((Number) row[1]).longValue(), ((Number) row[2]).longValue()));
+            }
+        }
+        paymentStatRepository.saveAll(stats.values());
+        log.info("Payment stats rebuilt: {}", stats.values());
+    }
+
+    private void adjust(Payment.PaymentStatus status, long count, long amount) {
+        if (status == null) {
+            return;
+        }
+        if (paymentStatRepository.adjust(status, count, amount) == 0) {
+            // Row not backfilled yet; the startup backfill creates one per status
+            paymentStatRepository.save(new PaymentStat(status, count, amount));
+        }
+    }
+
+    private static long countOf(PaymentStat stat) {
+        return stat != null ? stat.getPaymentCount() : 0L;
+    }
+
+    private static long amountOf(Payment payment) {
+        return payment.getAmount() != null ? payment.getAmount() : 0L;
+    }
+}
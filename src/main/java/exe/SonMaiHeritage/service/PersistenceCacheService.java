@@ -0,0 +1,71 @@
+package exe.SonMaiHeritage.service;
+
+import jakarta.persistence.EntityManagerFactory;
+import lombok.extern.slf4j.Slf4j;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.CacheRegionStatistics;
+import org.hibernate.stat.Statistics;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Hibernate second-level / query cache housekeeping and statistics.
+ * <p>
+ * Entity writes through the repositories keep the READ_WRITE regions current on their own;
+ * bulk catalog reloads evict everything, since they may bypass the persistence context.
+ */
+@Service
+@Slf4j
+public class PersistenceCacheService {
+    private final SessionFactory sessionFactory;
+
+    public PersistenceCacheService(EntityManagerFactory entityManagerFactory) {
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+    }
+
+    @EventListener
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        // Another instance's writes didn't go through this node's cache regions either
+        if (event.getChangeType() == CatalogChangedEvent.ChangeType.RELOAD
+                || event.getChangeType() == CatalogChangedEvent.ChangeType.REMOTE) {
+            evictAll();
+        }
+    }
+
+    public void evictAll() {
+        sessionFactory.getCache().evictAllRegions();
+        log.info("Evicted all second-level and query cache regions");
+    }
+
+    public Map<String, Object> statistics() {
+        Statistics statistics = sessionFactory.getStatistics();
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", statistics.isStatisticsEnabled());
+        result.put("secondLevelCacheHits", statistics.getSecondLevelCacheHitCount());
+        result.put("secondLevelCacheMisses", statistics.getSecondLevelCacheMissCount());
+        result.put("secondLevelCachePuts", statistics.getSecondLevelCachePutCount());
+        result.put("queryCacheHits", statistics.getQueryCacheHitCount());
+        result.put("queryCacheMisses", statistics.getQueryCacheMissCount());
+        result.put("queryCachePuts", statistics.getQueryCachePutCount());
+        result.put("queryExecutions", statistics.getQueryExecutionCount());
+
+        Map<String, Object> regions = new LinkedHashMap<>();
+        for (String regionName : statistics.getSecondLevelCacheRegionNames()) {
+            CacheRegionStatistics region = statistics.getCacheRegionStatistics(regionName);
+            if (region == null) {
+                continue;
+            }
+            Map<String, Object> regionStats = new LinkedHashMap<>();
+            regionStats.put("hits", region.getHitCount());
+            regionStats.put("misses", region.getMissCount());
+            regionStats.put("puts", region.getPutCount());
+            regionStats.put("elementsInMemory", region.getElementCountInMemory());
+            regions.put(regionName, regionStats);
+        }
+        result.put("regions", regions);
+        return result;
+    }
+}
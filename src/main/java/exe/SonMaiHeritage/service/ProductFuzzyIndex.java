@@ -0,0 +1,228 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Typo-tolerant product name search. Candidates are gathered from a trigram index over the
+ * accent-folded names and then ranked by trigram overlap and by the edit distance between the
+ * query and the closest part of the name, so "somai" or "tranh sn mai" still find "Tranh sơn mài".
+ */
+@Service
+@Slf4j
+public class ProductFuzzyIndex extends CatalogIndex {
+    private static final int MAX_RESULTS = 20;
+    // Only the candidates sharing the most trigrams with the query get the (quadratic) edit distance check
+    private static final int MAX_CANDIDATES = 200;
+    private static final double MIN_OVERLAP = 0.3;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final Map<String, Set<Integer>> postings = new HashMap<>();
+    private final Map<Integer, Document> documents = new HashMap<>();
+    private volatile boolean ready;
+
+    public ProductFuzzyIndex(ProductRepository productRepository) {
+        super(productRepository);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<ProductResponse> search(String query) {
+        String text = String.join(" ", TextNormalizer.tokenize(query));
+        String compact = text.replace(" ", "");
+        if (compact.length() < 2) {
+            return List.of();
+        }
+        Set<String> queryGrams = trigrams(text);
+        // Allow roughly one typo per four characters
+        int maxErrors = Math.max(1, compact.length() / 4);
+
+        lock.readLock().lock();
+        try {
+            Map<Integer, Integer> shared = new HashMap<>();
+            for (String gram : queryGrams) {
+                for (Integer productId : postings.getOrDefault(gram, Set.of())) {
+                    shared.merge(productId, 1, Integer::sum);
+                }
+            }
+            List<Integer> candidates = new ArrayList<>(shared.keySet());
+            candidates.sort(Comparator.<Integer, Integer>comparing(shared::get).reversed());
+
+            List<Match> matches = new ArrayList<>();
+            for (Integer productId : candidates.subList(0, Math.min(MAX_CANDIDATES, candidates.size()))) {
+                double overlap = shared.get(productId) / (double) queryGrams.size();
+                if (overlap < MIN_OVERLAP) {
+                    break;
+                }
+                Document document = documents.get(productId);
+                int distance = substringEditDistance(compact, document.compact);
+                if (distance > maxErrors) {
+                    continue;
+                }
+                double similarity = 1.0 - (double) distance / compact.length();
+                matches.add(new Match(document.product, 0.5 * overlap + 0.5 * similarity));
+            }
+            matches.sort(Comparator.comparingDouble((Match match) -> match.score).reversed()
+                    .thenComparing(match -> match.product.getId()));
+
+            List<ProductResponse> results = new ArrayList<>();
+            for (Match match : matches.subList(0, Math.min(MAX_RESULTS, matches.size()))) {
+                results.add(match.product);
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(ProductResponse product) {
+        Document document = new Document(product);
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            addLocked(document);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void updateQuantity(Integer productId, Integer quantity) {
+        lock.writeLock().lock();
+        try {
+            // Same name, so the trigram postings stay as they are
+            documents.computeIfPresent(productId,
+                    (id, document) -> new Document(document.product.toBuilder().quantity(quantity).build()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        try {
+            List<Product> products = productRepository.findAllActiveWithType();
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                documents.clear();
+                for (Product product : products) {
+                    addLocked(new Document(ProductMapper.toProductResponse(product)));
+                }
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Product fuzzy index rebuilt: {} products, {} trigrams", products.size(), postings.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild product fuzzy index: {}", e.getMessage());
+        }
+    }
+
+    private void addLocked(Document document) {
+        documents.put(document.product.getId(), document);
+        for (String gram : document.grams) {
+            postings.computeIfAbsent(gram, key -> new HashSet<>()).add(document.product.getId());
+        }
+    }
+
+    private void removeLocked(Integer productId) {
+        Document document = documents.remove(productId);
+        if (document == null) {
+            return;
+        }
+        for (String gram : document.grams) {
+            Set<Integer> posting = postings.get(gram);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(gram);
+                }
+            }
+        }
+    }
+
+    /** Trigrams of the space-padded text, so word boundaries contribute grams like " so" and "ai ". */
+    static Set<String> trigrams(String text) {
+        String padded = " " + text + " ";
+        Set<String> grams = new LinkedHashSet<>();
+        for (int i = 0; i + 3 <= padded.length(); i++) {
+            grams.add(padded.substring(i, i + 3));
+        }
+        return grams;
+    }
+
+    /**
+     * Fewest edits turning the query into some substring of the text (Sellers' algorithm):
+     * a plain Levenshtein table where the match may start and end anywhere in the text.
+     */
+    static int substringEditDistance(String query, String text) {
+        int[] previous = new int[text.length() + 1];
+        int[] current = new int[text.length() + 1];
+        for (int i = 1; i <= query.length(); i++) {
+            current[0] = i;
+            for (int j = 1; j <= text.length(); j++) {
+                int substitution = previous[j - 1] + (query.charAt(i - 1) == text.charAt(j - 1) ? 0 : 1);
+                current[j] = Math.min(substitution, Math.min(previous[j] + 1, current[j - 1] + 1));
+            }
+            int[] swap = previous;
+            previous = current;
+            current = swap;
+        }
+        int best = query.length();
+        for (int distance : previous) {
+            best = Math.min(best, distance);
+        }
+        return best;
+    }
+
+    private static final class Document {
+        private final ProductResponse product;
+        private final String compact;
+        private final Set<String> grams;
+
+        private Document(ProductResponse product) {
+            String text = String.join(" ", TextNormalizer.tokenize(product.getName()));
+            this.product = product;
+            this.compact = text.replace(" ", "");
+            this.grams = trigrams(text);
+        }
+    }
+
+    private static final class Match {
+        private final ProductResponse product;
+        private final double score;
+
+        private Match(ProductResponse product, double score) {
+            this.product = product;
+            this.score = score;
+        }
+    }
+}
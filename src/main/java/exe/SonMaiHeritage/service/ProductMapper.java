@@ -0,0 +1,27 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.model.ProductResponse;
+
+/**
+ * Entity to storefront DTO mapping shared by the product service and the in-memory catalog views.
+ */
+public final class ProductMapper {
+    public static final String UNCATEGORIZED = "Chưa phân loại";
+
+    private ProductMapper() {
+    }
+
+    public static ProductResponse toProductResponse(Product product) {
+        return ProductResponse.builder()
+                .id(product.getId())
+                .name(product.getName())
+                .description(product.getDescription())
+                .price(product.getPrice())
+                .pictureUrl(product.getPictureUrl())
+                .quantity(product.getQuantity())
+                .productType(product.getType() != null ? product.getType().getName() : UNCATEGORIZED)
+                .productTypeId(product.getType() != null ? product.getType().getId() : null)
+                .build();
+    }
+}
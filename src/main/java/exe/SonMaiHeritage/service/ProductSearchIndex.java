@@ -0,0 +1,193 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-process inverted index over ACTIVE products (name, description and type name), using
+ * accent-folded tokens so Vietnamese queries match with or without diacritics.
+ */
+@Service
+@Slf4j
+public class ProductSearchIndex extends CatalogIndex {
+    public enum MatchMode {
+        ALL, // every query term must match
+        ANY  // at least one query term must match
+    }
+
+    // Term frequency weights per field: a hit in the name counts more than one in the description
+    private static final int NAME_WEIGHT = 3;
+    private static final int TYPE_WEIGHT = 2;
+    private static final int DESCRIPTION_WEIGHT = 1;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    // term -> (productId -> weighted term frequency)
+    private final Map<String, Map<Integer, Integer>> postings = new HashMap<>();
+    private final Map<Integer, ProductResponse> documents = new HashMap<>();
+    // productId -> indexed terms, so a product can be removed without scanning every posting list
+    private final Map<Integer, Set<String>> documentTerms = new HashMap<>();
+    private volatile boolean ready;
+
+    public ProductSearchIndex(ProductRepository productRepository) {
+        super(productRepository);
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * Ranked matches for the query: products matching more query terms come first, then by TF-IDF score.
+     */
+    public List<ProductResponse> search(String query, MatchMode mode) {
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(TextNormalizer.tokenize(query)));
+        if (terms.isEmpty()) {
+            return List.of();
+        }
+        lock.readLock().lock();
+        try {
+            Map<Integer, Double> scores = new HashMap<>();
+            Map<Integer, Integer> matchedTerms = new HashMap<>();
+            int documentCount = documents.size();
+            for (String term : terms) {
+                Map<Integer, Integer> posting = postings.get(term);
+                if (posting == null) {
+                    if (mode == MatchMode.ALL) {
+                        return List.of();
+                    }
+                    continue;
+                }
+                double idf = Math.log(1.0 + (double) documentCount / posting.size());
+                posting.forEach((productId, frequency) -> {
+                    scores.merge(productId, frequency * idf, Double::sum);
+                    matchedTerms.merge(productId, 1, Integer::sum);
+                });
+            }
+
+            List<Integer> hits = new ArrayList<>();
+            for (Map.Entry<Integer, Integer> entry : matchedTerms.entrySet()) {
+                if (mode == MatchMode.ANY || entry.getValue() == terms.size()) {
+                    hits.add(entry.getKey());
+                }
+            }
+            hits.sort(Comparator.<Integer, Integer>comparing(matchedTerms::get).reversed()
+                    .thenComparing(Comparator.<Integer, Double>comparing(scores::get).reversed())
+                    .thenComparing(Comparator.naturalOrder()));
+
+            List<ProductResponse> results = new ArrayList<>(hits.size());
+            for (Integer productId : hits) {
+                results.add(documents.get(productId));
+            }
+            return results;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public void index(ProductResponse product) {
+        Map<String, Integer> frequencies = termFrequencies(product);
+        lock.writeLock().lock();
+        try {
+            removeLocked(product.getId());
+            frequencies.forEach((term, frequency) ->
+                    postings.computeIfAbsent(term, key -> new HashMap<>()).put(product.getId(), frequency));
+            documents.put(product.getId(), product);
+            documentTerms.put(product.getId(), frequencies.keySet());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            removeLocked(productId);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    protected void updateQuantity(Integer productId, Integer quantity) {
+        lock.writeLock().lock();
+        try {
+            // Swapped rather than mutated: earlier search results may still be serialising the old one
+            documents.computeIfPresent(productId, (id, document) -> document.toBuilder().quantity(quantity).build());
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void rebuild() {
+        try {
+            List<Product> products = productRepository.findAllActiveWithType();
+            lock.writeLock().lock();
+            try {
+                postings.clear();
+                documents.clear();
+                documentTerms.clear();
+                for (Product product : products) {
+                    ProductResponse response = ProductMapper.toProductResponse(product);
+                    Map<String, Integer> frequencies = termFrequencies(response);
+                    frequencies.forEach((term, frequency) ->
+                            postings.computeIfAbsent(term, key -> new HashMap<>()).put(response.getId(), frequency));
+                    documents.put(response.getId(), response);
+                    documentTerms.put(response.getId(), frequencies.keySet());
+                }
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Product search index rebuilt: {} products, {} terms", products.size(), postings.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild product search index: {}", e.getMessage());
+        }
+    }
+
+    private void removeLocked(Integer productId) {
+        Set<String> terms = documentTerms.remove(productId);
+        documents.remove(productId);
+        if (terms == null) {
+            return;
+        }
+        for (String term : terms) {
+            Map<Integer, Integer> posting = postings.get(term);
+            if (posting != null) {
+                posting.remove(productId);
+                if (posting.isEmpty()) {
+                    postings.remove(term);
+                }
+            }
+        }
+    }
+
+    private Map<String, Integer> termFrequencies(ProductResponse product) {
+        Map<String, Integer> frequencies = new HashMap<>();
+        addTerms(frequencies, product.getName(), NAME_WEIGHT);
+        addTerms(frequencies, product.getProductType(), TYPE_WEIGHT);
+        addTerms(frequencies, product.getDescription(), DESCRIPTION_WEIGHT);
+        return frequencies;
+    }
+
+    private void addTerms(Map<String, Integer> frequencies, String text, int weight) {
+        for (String token : TextNormalizer.tokenize(text)) {
+            frequencies.merge(token, weight, Integer::sum);
+        }
+    }
+}
@@ -1,16 +1,28 @@
 package exe.SonMaiHeritage.service;
 
+import exe.SonMaiHeritage.model.CursorPageResponse;
+import exe.SonMaiHeritage.model.FacetedProductResponse;
+import exe.SonMaiHeritage.model.ProductBatchResponse;
 import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.model.ProductSearchCriteria;
+import exe.SonMaiHeritage.model.SuggestionResponse;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 import java.util.List;
+import java.util.Map;
 
 public interface ProductService {
     ProductResponse getProductById(Integer productId);
+    ProductBatchResponse getProductsByIds(List<Integer> productIds);
     Page<ProductResponse> getProducts(Pageable pageable);
+    Page<ProductResponse> searchProducts(ProductSearchCriteria criteria, Pageable pageable);
+    FacetedProductResponse searchProductsWithFacets(ProductSearchCriteria criteria, Pageable pageable);
+    CursorPageResponse<ProductResponse> getProductsByCursor(String cursor, int size, String sort, String order);
     List<ProductResponse> searchProductsByName(String keyword);
+    List<ProductResponse> fuzzySearchProducts(String keyword);
+    List<SuggestionResponse> suggest(String prefix, int limit);
     List<ProductResponse> searchProductsByType(Integer typeId);
-    void updateProductQuantity(Integer productId, Integer quantityToSubtract);
+    void deductInventory(Map<Integer, Integer> quantitiesByProductId);
     List<ProductResponse> getAllProducts();
 }
@@ -1,29 +1,85 @@
 package exe.SonMaiHeritage.service;
 
+import exe.SonMaiHeritage.config.CatalogProperties;
 import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.exceptions.InsufficientStockException;
+import exe.SonMaiHeritage.exceptions.InvalidCursorException;
 import exe.SonMaiHeritage.exceptions.ProductNotFoundException;
+import exe.SonMaiHeritage.model.CursorPageResponse;
+import exe.SonMaiHeritage.model.FacetedProductResponse;
+import exe.SonMaiHeritage.model.ProductBatchResponse;
+import exe.SonMaiHeritage.model.ProductCursor;
 import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.model.ProductSearchCriteria;
+import exe.SonMaiHeritage.model.SuggestionResponse;
 import exe.SonMaiHeritage.repository.ProductRepository;
+import exe.SonMaiHeritage.repository.ProductSpecifications;
 import lombok.extern.log4j.Log4j2;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.stream.Collectors;
 
 @Service
 @Log4j2
 public class ProductServiceImpl implements ProductService {
+    private static final int MAX_PAGE_SIZE = 100;
+    // Request-facing sort keys mapped to entity properties; anything else is ignored
+    private static final Map<String, String> SORTABLE_PROPERTIES = Map.of(
+            "id", "id",
+            "name", "name",
+            "price", "price",
+            "quantity", "quantity");
+    // Sort keys supported by the keyset (cursor) listing, each backed by a seek query
+    private static final List<String> SEEKABLE_PROPERTIES = List.of("id", "name", "price");
+
     private final ProductRepository productRepository;
+    private final CatalogSnapshotService catalogSnapshotService;
+    private final ProductSearchIndex productSearchIndex;
+    private final ProductSuggestIndex productSuggestIndex;
+    private final ProductFuzzyIndex productFuzzyIndex;
+    private final CatalogProperties catalogProperties;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public ProductServiceImpl(ProductRepository productRepository) {
+    public ProductServiceImpl(ProductRepository productRepository, CatalogSnapshotService catalogSnapshotService,
+                              ProductSearchIndex productSearchIndex, ProductSuggestIndex productSuggestIndex,
+                              ProductFuzzyIndex productFuzzyIndex, CatalogProperties catalogProperties,
+                              ApplicationEventPublisher eventPublisher) {
         this.productRepository = productRepository;
+        this.catalogSnapshotService = catalogSnapshotService;
+        this.productSearchIndex = productSearchIndex;
+        this.productSuggestIndex = productSuggestIndex;
+        this.productFuzzyIndex = productFuzzyIndex;
+        this.catalogProperties = catalogProperties;
+        this.eventPublisher = eventPublisher;
     }
 
     @Override
     public ProductResponse getProductById(Integer productId) {
         log.info("Fetching Product by Id: {}", productId);
+        //ACTIVE products are served from the in-memory snapshot, anything else falls through to the DB
+        Optional<ProductResponse> cached = catalogSnapshotService.current()
+                .flatMap(snapshot -> snapshot.findById(productId));
+        if (cached.isPresent()) {
+            return cached.get();
+        }
         Product product =productRepository.findById(productId)
                 .orElseThrow(()->new ProductNotFoundException("Product with given id doesn't exist"));
         //now convert the product to product response
@@ -32,95 +88,307 @@ public class ProductServiceImpl implements ProductService {
         return productResponse;
     }
 
+    @Override
+    public ProductBatchResponse getProductsByIds(List<Integer> productIds) {
+        Set<Integer> ids = productIds.stream()
+                .filter(Objects::nonNull)
+                .collect(Collectors.toCollection(LinkedHashSet::new));
+        log.info("Fetching {} product(s) by id in one batch", ids.size());
+        Map<Integer, ProductResponse> found = new HashMap<>();
+        List<Integer> misses = new ArrayList<>();
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        for (Integer id : ids) {
+            Optional<ProductResponse> cached = snapshot.flatMap(s -> s.findById(id));
+            if (cached.isPresent()) {
+                found.put(id, cached.get());
+            } else {
+                misses.add(id);
+            }
+        }
+        //Whatever the snapshot doesn't hold (non-ACTIVE or not yet indexed) is resolved with one IN query
+        if (!misses.isEmpty()) {
+            for (ProductResponse product : productRepository.findResponsesByIdIn(misses)) {
+                if (product.getProductType() == null) {
+                    product.setProductType(ProductMapper.UNCATEGORIZED);
+                }
+                found.put(product.getId(), product);
+            }
+        }
+
+        List<ProductResponse> products = new ArrayList<>(found.size());
+        List<Integer> missingIds = new ArrayList<>();
+        for (Integer id : ids) {
+            ProductResponse product = found.get(id);
+            if (product != null) {
+                products.add(product);
+            } else {
+                missingIds.add(id);
+            }
+        }
+        log.info("Fetched {} product(s), {} missing", products.size(), missingIds.size());
+        return ProductBatchResponse.builder()
+                .products(products)
+                .missingIds(missingIds)
+                .build();
+    }
+
     @Override
     public Page<ProductResponse> getProducts(Pageable pageable) {
         log.info("Fetching ACTIVE products");
-        //Retrieve only ACTIVE products from DB
-        List<Product> activeProducts = productRepository.findAllActiveWithType();
-        // Convert to Page manually since we're filtering
-        int start = (int) pageable.getOffset();
-        int end = Math.min((start + pageable.getPageSize()), activeProducts.size());
-        List<Product> pageContent = activeProducts.subList(start, end);
-        
-        Page<Product> productPage = new org.springframework.data.domain.PageImpl<>(
-            pageContent, pageable, activeProducts.size());
-        
-        //Map
-        Page<ProductResponse> productResponses = productPage
+        Pageable catalogPageable = toCatalogPageable(pageable);
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        if (snapshot.isPresent()) {
+            return pageFromSnapshot(snapshot.get(), catalogPageable);
+        }
+        //No snapshot yet: page and sort in the DB so only the requested slice is loaded
+        Page<ProductResponse> productResponses = productRepository.findActiveResponses(catalogPageable);
+        log.info("Fetched {} of {} ACTIVE products", productResponses.getNumberOfElements(), productResponses.getTotalElements());
+        return productResponses;
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public Page<ProductResponse> searchProducts(ProductSearchCriteria criteria, Pageable pageable) {
+        log.info("Searching products by criteria: {}", criteria);
+        return findMatching(resolveKeyword(criteria), pageable);
+    }
+
+    private Page<ProductResponse> findMatching(ProductSearchCriteria criteria, Pageable pageable) {
+        //All filters, paging and sorting are applied in one SQL query plus its count query
+        Page<ProductResponse> productResponses = productRepository
+                .findAll(ProductSpecifications.matching(criteria), toCatalogPageable(pageable))
                 .map(this::convertToProductResponse);
-        log.info("Fetched {} ACTIVE products", productResponses.getTotalElements());
+        log.info("Fetched {} of {} matching products", productResponses.getNumberOfElements(), productResponses.getTotalElements());
         return productResponses;
     }
 
+    @Override
+    @Transactional(readOnly = true)
+    public FacetedProductResponse searchProductsWithFacets(ProductSearchCriteria criteria, Pageable pageable) {
+        criteria = resolveKeyword(criteria);
+        Page<ProductResponse> products = findMatching(criteria, pageable);
+        //Each facet is counted without its own filter so the other options keep their counts
+        ProductSearchCriteria withoutType = criteria.toBuilder().typeId(null).build();
+        ProductSearchCriteria withoutPrice = criteria.toBuilder().minPrice(null).maxPrice(null).build();
+        List<Long> buckets = catalogProperties.getPriceBuckets().stream().sorted().distinct().collect(Collectors.toList());
+        return FacetedProductResponse.builder()
+                .products(products)
+                .typeFacets(productRepository.countByType(ProductSpecifications.matching(withoutType)))
+                .priceFacets(productRepository.countByPriceBucket(ProductSpecifications.matching(withoutPrice), buckets))
+                .build();
+    }
+
+    // Matches the keyword through the accent-folding search index and filters the SQL query by id
+    private ProductSearchCriteria resolveKeyword(ProductSearchCriteria criteria) {
+        String keyword = criteria.getKeyword();
+        if (keyword == null || keyword.isBlank() || !productSearchIndex.isReady()) {
+            return criteria;
+        }
+        List<Integer> ids = productSearchIndex.search(keyword, ProductSearchIndex.MatchMode.ALL).stream()
+                .map(ProductResponse::getId)
+                .collect(Collectors.toList());
+        return criteria.toBuilder().productIds(ids).build();
+    }
+
+    @Override
+    public CursorPageResponse<ProductResponse> getProductsByCursor(String cursor, int size, String sort, String order) {
+        int pageSize = Math.max(1, Math.min(size, MAX_PAGE_SIZE));
+        // Fetch one extra row to learn whether another slice exists without a count query
+        Pageable limit = PageRequest.of(0, pageSize + 1);
+        ProductCursor position;
+        List<ProductResponse> products;
+        if (cursor != null && !cursor.isBlank()) {
+            // The cursor carries its own sort so later slices stay consistent with the first one
+            position = ProductCursor.decode(cursor);
+            log.info("Fetching ACTIVE products after cursor: sort={}, id={}", position.getSort(), position.getLastId());
+            products = seekActiveProducts(position, limit);
+        } else {
+            String property = SEEKABLE_PROPERTIES.contains(sort) ? sort : "name";
+            Sort.Direction direction = "desc".equalsIgnoreCase(order) ? Sort.Direction.DESC : Sort.Direction.ASC;
+            position = new ProductCursor(property, direction, null, null);
+            log.info("Fetching first ACTIVE product slice: sort={}, direction={}", property, direction);
+            Sort sorting = "id".equals(property)
+                    ? Sort.by(direction, "id")
+                    : Sort.by(direction, property).and(Sort.by(direction, "id"));
+            products = productRepository.findActiveSlice(PageRequest.of(0, pageSize + 1, sorting));
+        }
+
+        boolean hasNext = products.size() > pageSize;
+        List<ProductResponse> content = hasNext ? products.subList(0, pageSize) : products;
+        String nextCursor = null;
+        if (hasNext) {
+            ProductResponse last = content.get(content.size() - 1);
+            nextCursor = new ProductCursor(position.getSort(), position.getDirection(), last.getId(), sortKeyOf(last, position.getSort()))
+                    .encode();
+        }
+
+        log.info("Fetched {} ACTIVE products, hasNext={}", content.size(), hasNext);
+        return CursorPageResponse.<ProductResponse>builder()
+                .content(content)
+                .size(content.size())
+                .hasNext(hasNext)
+                .nextCursor(nextCursor)
+                .build();
+    }
+
     @Override
     public List<ProductResponse> searchProductsByName(String keyword) {
         log.info("Searching ACTIVE product(s) by name: {}", keyword);
-        //Call the custom query Method - search in name only
-        List<Product> products = productRepository.searchByNameOrDescriptionOrType(keyword);
-        // Filter to only include ACTIVE products
-        List<Product> activeProducts = products.stream()
-                .filter(product -> product.getStatus() == Product.ProductStatus.ACTIVE)
-                .collect(Collectors.toList());
-        //Map
-        List<ProductResponse> productResponses = activeProducts.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
+        if (productSearchIndex.isReady()) {
+            //All terms must match; if nothing does, fall back to ranking partial matches
+            List<ProductResponse> productResponses = productSearchIndex.search(keyword, ProductSearchIndex.MatchMode.ALL);
+            if (productResponses.isEmpty()) {
+                productResponses = productSearchIndex.search(keyword, ProductSearchIndex.MatchMode.ANY);
+            }
+            log.info("Fetched {} ACTIVE products from search index", productResponses.size());
+            return productResponses;
+        }
+        //Index not built yet: call the custom query Method - search in name only, ACTIVE filtered in SQL
+        List<ProductResponse> productResponses = productRepository.findActiveResponsesByName(keyword);
         log.info("Fetched {} ACTIVE products", productResponses.size());
         return productResponses;
     }
 
+    @Override
+    public List<ProductResponse> fuzzySearchProducts(String keyword) {
+        log.info("Fuzzy searching ACTIVE product(s) by name: {}", keyword);
+        if (!productFuzzyIndex.isReady()) {
+            //Fuzzy matching is in-memory only; until the index is built use the regular search
+            return searchProductsByName(keyword);
+        }
+        List<ProductResponse> productResponses = productFuzzyIndex.search(keyword);
+        log.info("Fetched {} ACTIVE products from fuzzy index", productResponses.size());
+        return productResponses;
+    }
+
+    @Override
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        if (prefix == null || prefix.isBlank() || !productSuggestIndex.isReady()) {
+            return List.of();
+        }
+        return productSuggestIndex.suggest(prefix, Math.max(1, Math.min(limit, ProductSuggestIndex.TOP_K)));
+    }
+
     @Override
     public List<ProductResponse> searchProductsByType(Integer typeId) {
         log.info("Searching ACTIVE product(s) by typeId: {}", typeId);
-        //Call the custom query Method
-        List<Product> products = productRepository.searchByType(typeId);
-        // Filter to only include ACTIVE products
-        List<Product> activeProducts = products.stream()
-                .filter(product -> product.getStatus() == Product.ProductStatus.ACTIVE)
-                .collect(Collectors.toList());
-        //Map
-        List<ProductResponse> productResponses = activeProducts.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        if (snapshot.isPresent()) {
+            return snapshot.get().byType(typeId);
+        }
+        //Call the custom query Method, ACTIVE filtered in SQL
+        List<ProductResponse> productResponses = productRepository.findActiveResponsesByType(typeId);
         log.info("Fetched {} ACTIVE products", productResponses.size());
         return productResponses;
     }
 
     @Override
-    public void updateProductQuantity(Integer productId, Integer quantityToSubtract) {
-        log.info("Updating quantity for product ID: {}, subtracting: {}", productId, quantityToSubtract);
-        Product product = productRepository.findById(productId)
-                .orElseThrow(() -> new ProductNotFoundException("Product with given id doesn't exist"));
-        
-        int newQuantity = product.getQuantity() - quantityToSubtract;
-        if (newQuantity < 0) {
-            throw new RuntimeException("Insufficient product quantity. Available: " + product.getQuantity() + ", Requested: " + quantityToSubtract);
+    @Transactional
+    public void deductInventory(Map<Integer, Integer> quantitiesByProductId) {
+        //Merge duplicate lines and order by id: rows are locked in the same order by every caller
+        SortedMap<Integer, Integer> lines = new TreeMap<>();
+        quantitiesByProductId.forEach((productId, quantity) -> {
+            if (productId == null || quantity == null || quantity <= 0) {
+                throw new IllegalArgumentException("Invalid inventory line: product " + productId + ", quantity " + quantity);
+            }
+            lines.merge(productId, quantity, Integer::sum);
+        });
+        if (lines.isEmpty()) {
+            return;
         }
-        
-        product.setQuantity(newQuantity);
-        productRepository.save(product);
-        log.info("Updated product quantity. New quantity: {}", newQuantity);
+        log.info("Deducting inventory for {} product(s) in one statement", lines.size());
+        int updated = productRepository.decrementQuantities(lines);
+        if (updated < lines.size()) {
+            //Thrown inside the transaction, so the lines that did succeed are rolled back too
+            throw new InsufficientStockException("Insufficient stock for " + (lines.size() - updated)
+                    + " of " + lines.size() + " product(s)");
+        }
+        lines.keySet().forEach(productId -> eventPublisher.publishEvent(CatalogChangedEvent.stockChanged(productId)));
+        log.info("Deducted inventory for products {}", lines.keySet());
     }
 
     @Override
     public List<ProductResponse> getAllProducts() {
         log.info("Fetching all ACTIVE products without pagination");
         // Only return ACTIVE products for customer-facing API
-        List<Product> products = productRepository.findAllActiveWithType();
-        return products.stream()
-                .map(this::convertToProductResponse)
-                .collect(Collectors.toList());
+        Optional<CatalogSnapshot> snapshot = catalogSnapshotService.current();
+        if (snapshot.isPresent()) {
+            return snapshot.get().products();
+        }
+        return productRepository.findActiveResponses();
+    }
+
+    private Page<ProductResponse> pageFromSnapshot(CatalogSnapshot snapshot, Pageable pageable) {
+        // Same order chain (including the id tie-break) as the SQL path, so both serve identical pages
+        List<ProductResponse> sorted = snapshot.sorted(pageable.getSort());
+        int total = sorted.size();
+        int start = (int) Math.min(pageable.getOffset(), total);
+        int end = Math.min(start + pageable.getPageSize(), total);
+        return new PageImpl<>(new ArrayList<>(sorted.subList(start, end)), pageable, total);
+    }
+
+    private List<ProductResponse> seekActiveProducts(ProductCursor position, Pageable limit) {
+        boolean ascending = position.getDirection().isAscending();
+        Integer lastId = position.getLastId();
+        if (lastId == null || (!"id".equals(position.getSort()) && position.getLastKey() == null)) {
+            throw new InvalidCursorException("Malformed cursor");
+        }
+        try {
+            switch (position.getSort()) {
+                case "id":
+                    return ascending
+                            ? productRepository.findActiveAfterIdAsc(lastId, limit)
+                            : productRepository.findActiveAfterIdDesc(lastId, limit);
+                case "name":
+                    return ascending
+                            ? productRepository.findActiveAfterNameAsc(position.getLastKey(), lastId, limit)
+                            : productRepository.findActiveAfterNameDesc(position.getLastKey(), lastId, limit);
+                case "price":
+                    Long lastPrice = Long.valueOf(position.getLastKey());
+                    return ascending
+                            ? productRepository.findActiveAfterPriceAsc(lastPrice, lastId, limit)
+                            : productRepository.findActiveAfterPriceDesc(lastPrice, lastId, limit);
+                default:
+                    throw new InvalidCursorException("Unsupported cursor sort: " + position.getSort());
+            }
+        } catch (NumberFormatException e) {
+            throw new InvalidCursorException("Malformed cursor", e);
+        }
+    }
+
+    private String sortKeyOf(ProductResponse product, String property) {
+        switch (property) {
+            case "name":
+                return product.getName();
+            case "price":
+                return String.valueOf(product.getPrice());
+            default:
+                return null;
+        }
+    }
+
+    private Pageable toCatalogPageable(Pageable pageable) {
+        List<Sort.Order> orders = new ArrayList<>();
+        for (Sort.Order order : pageable.getSort()) {
+            String property = SORTABLE_PROPERTIES.get(order.getProperty().toLowerCase(Locale.ROOT));
+            if (property == null) {
+                log.warn("Ignoring unsupported sort property: {}", order.getProperty());
+                continue;
+            }
+            orders.add(new Sort.Order(order.getDirection(), property));
+        }
+        if (orders.isEmpty()) {
+            orders.add(Sort.Order.asc("name"));
+        }
+        // Tie-break on id so rows with equal sort keys don't shift between pages
+        if (orders.stream().noneMatch(order -> "id".equals(order.getProperty()))) {
+            orders.add(Sort.Order.asc("id"));
+        }
+        int pageSize = Math.min(pageable.getPageSize(), MAX_PAGE_SIZE);
+        return PageRequest.of(pageable.getPageNumber(), pageSize, Sort.by(orders));
     }
 
     private ProductResponse convertToProductResponse(Product product) {
-        return ProductResponse.builder()
-                .id(product.getId())
-                .name(product.getName())
-                .description(product.getDescription())
-                .price(product.getPrice())
-                .pictureUrl(product.getPictureUrl())
-                .quantity(product.getQuantity())
-                .productType(product.getType() != null ? product.getType().getName() : "Chưa phân loại")
-                .build();
+        return ProductMapper.toProductResponse(product);
     }
 }
@@ -0,0 +1,295 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.entity.Type;
+import exe.SonMaiHeritage.model.ProductResponse;
+import exe.SonMaiHeritage.model.SuggestionResponse;
+import exe.SonMaiHeritage.repository.OrderRepository;
+import exe.SonMaiHeritage.repository.ProductRepository;
+import exe.SonMaiHeritage.repository.TypeRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Prefix autocomplete over accent-folded product and type names.
+ * Each name is inserted into a character trie under its full text and under every word suffix
+ * (so "mai" finds "Tranh sơn mài"), and every node caches the top suggestions of its subtree by
+ * popularity, making a lookup a walk down the prefix with no subtree scan.
+ */
+@Service
+@Slf4j
+public class ProductSuggestIndex extends CatalogIndex {
+    static final int TOP_K = 10;
+    // Bounds the number of trie keys a single long name can create
+    private static final int MAX_WORD_SUFFIXES = 8;
+
+    private static final Comparator<Entry> BY_POPULARITY = Comparator.comparingLong((Entry entry) -> entry.popularity).reversed()
+            .thenComparing(entry -> entry.response.getText(), Comparator.nullsLast(Comparator.naturalOrder()));
+
+    private final TypeRepository typeRepository;
+    private final OrderRepository orderRepository;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private Node root = new Node();
+    private final Map<String, Entry> entries = new HashMap<>();
+    // Popularity inputs: units sold per product (refreshed on rebuild), ACTIVE product count per type
+    private Map<Integer, Long> soldQuantities = Map.of();
+    private final Map<Integer, Integer> productTypes = new HashMap<>();
+    private final Map<Integer, Long> typeProductCounts = new HashMap<>();
+    private final Map<Integer, String> typeNames = new HashMap<>();
+    private volatile boolean ready;
+
+    public ProductSuggestIndex(ProductRepository productRepository, TypeRepository typeRepository,
+                               OrderRepository orderRepository) {
+        super(productRepository);
+        this.typeRepository = typeRepository;
+        this.orderRepository = orderRepository;
+    }
+
+    @Override
+    public boolean isReady() {
+        return ready;
+    }
+
+    public List<SuggestionResponse> suggest(String prefix, int limit) {
+        String key = String.join(" ", TextNormalizer.tokenize(prefix));
+        if (key.isEmpty()) {
+            return List.of();
+        }
+        // Keep a trailing space ("son ") so the next word is expected
+        if (Character.isWhitespace(prefix.charAt(prefix.length() - 1))) {
+            key = key + " ";
+        }
+        lock.readLock().lock();
+        try {
+            Node node = root;
+            for (int i = 0; i < key.length() && node != null; i++) {
+                node = node.children.get(key.charAt(i));
+            }
+            if (node == null) {
+                return List.of();
+            }
+            List<SuggestionResponse> suggestions = new ArrayList<>();
+            for (Entry entry : node.top) {
+                if (suggestions.size() >= limit) {
+                    break;
+                }
+                suggestions.add(entry.response);
+            }
+            return suggestions;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    protected void refreshQuantity(Integer productId) {
+        // Suggestions carry no quantity, so there is nothing to re-read
+    }
+
+    @Override
+    protected void updateQuantity(Integer productId, Integer quantity) {
+        // Not reached: refreshQuantity() above skips the read
+    }
+
+    @Override
+    public void rebuild() {
+        try {
+            List<Product> products = productRepository.findAllActiveWithType();
+            List<Type> types = typeRepository.findAll();
+            Map<Integer, Long> sold = new HashMap<>();
+            for (Object[] row : orderRepository.sumSoldQuantityByProduct()) {
+                if (row[0] != null && row[1] != null) {
+                    sold.put((Integer) row[0], ((Number) row[1]).longValue());
+                }
+            }
+
+            lock.writeLock().lock();
+            try {
+                root = new Node();
+                entries.clear();
+                productTypes.clear();
+                typeProductCounts.clear();
+                typeNames.clear();
+                soldQuantities = sold;
+                types.forEach(type -> typeNames.put(type.getId(), type.getName()));
+                for (Product product : products) {
+                    upsertProductLocked(ProductMapper.toProductResponse(product));
+                }
+                // Types without ACTIVE products are still worth suggesting
+                typeNames.keySet().forEach(this::refreshTypeLocked);
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Suggest index rebuilt: {} entries", entries.size());
+        } catch (Exception e) {
+            log.error("Failed to rebuild suggest index: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void index(ProductResponse product) {
+        lock.writeLock().lock();
+        try {
+            upsertProductLocked(product);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public void remove(Integer productId) {
+        lock.writeLock().lock();
+        try {
+            removeEntryLocked("P" + productId);
+            Integer typeId = productTypes.remove(productId);
+            if (typeId != null) {
+                typeProductCounts.merge(typeId, -1L, Long::sum);
+                refreshTypeLocked(typeId);
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void upsertProductLocked(ProductResponse product) {
+        SuggestionResponse response = SuggestionResponse.builder()
+                .text(product.getName())
+                .kind(SuggestionResponse.Kind.PRODUCT)
+                .productId(product.getId())
+                .build();
+        removeEntryLocked("P" + product.getId());
+        insertEntryLocked(new Entry("P" + product.getId(), response, soldQuantities.getOrDefault(product.getId(), 0L)));
+
+        Integer previousType = productTypes.remove(product.getId());
+        if (previousType != null) {
+            typeProductCounts.merge(previousType, -1L, Long::sum);
+            refreshTypeLocked(previousType);
+        }
+        if (product.getProductTypeId() != null) {
+            productTypes.put(product.getId(), product.getProductTypeId());
+            typeNames.putIfAbsent(product.getProductTypeId(), product.getProductType());
+            typeProductCounts.merge(product.getProductTypeId(), 1L, Long::sum);
+            refreshTypeLocked(product.getProductTypeId());
+        }
+    }
+
+    private void refreshTypeLocked(Integer typeId) {
+        String name = typeNames.get(typeId);
+        removeEntryLocked("T" + typeId);
+        if (name == null) {
+            return;
+        }
+        SuggestionResponse response = SuggestionResponse.builder()
+                .text(name)
+                .kind(SuggestionResponse.Kind.TYPE)
+                .typeId(typeId)
+                .build();
+        insertEntryLocked(new Entry("T" + typeId, response, typeProductCounts.getOrDefault(typeId, 0L)));
+    }
+
+    private void insertEntryLocked(Entry entry) {
+        if (entry.keys.isEmpty()) {
+            return;
+        }
+        entries.put(entry.id, entry);
+        for (String key : entry.keys) {
+            List<Node> path = pathLocked(key, true);
+            path.get(path.size() - 1).terminals.put(entry.id, entry);
+            recomputeTopLocked(path);
+        }
+    }
+
+    private void removeEntryLocked(String entryId) {
+        Entry entry = entries.remove(entryId);
+        if (entry == null) {
+            return;
+        }
+        for (String key : entry.keys) {
+            List<Node> path = pathLocked(key, false);
+            if (path == null) {
+                continue;
+            }
+            path.get(path.size() - 1).terminals.remove(entryId);
+            recomputeTopLocked(path);
+        }
+    }
+
+    /** Nodes from the root to the node for key (inclusive); null if absent and create is false. */
+    private List<Node> pathLocked(String key, boolean create) {
+        List<Node> path = new ArrayList<>(key.length() + 1);
+        Node node = root;
+        path.add(node);
+        for (int i = 0; i < key.length(); i++) {
+            Node child = node.children.get(key.charAt(i));
+            if (child == null) {
+                if (!create) {
+                    return null;
+                }
+                child = new Node();
+                node.children.put(key.charAt(i), child);
+            }
+            node = child;
+            path.add(node);
+        }
+        return path;
+    }
+
+    /** A node's top list is the best of its own terminals and its children's top lists, so fix it bottom-up. */
+    private void recomputeTopLocked(List<Node> path) {
+        for (int i = path.size() - 1; i >= 0; i--) {
+            Node node = path.get(i);
+            Map<String, Entry> candidates = new LinkedHashMap<>(node.terminals);
+            for (Node child : node.children.values()) {
+                child.top.forEach(entry -> candidates.putIfAbsent(entry.id, entry));
+            }
+            List<Entry> top = new ArrayList<>(candidates.values());
+            top.sort(BY_POPULARITY);
+            node.top = List.copyOf(top.subList(0, Math.min(TOP_K, top.size())));
+            // Drop branches that no longer lead to any entry
+            if (i > 0 && node.top.isEmpty() && node.children.isEmpty()) {
+                path.get(i - 1).children.values().remove(node);
+            }
+        }
+    }
+
+    private static List<String> keysFor(String text) {
+        List<String> words = TextNormalizer.tokenize(text);
+        Set<String> keys = new LinkedHashSet<>();
+        for (int i = 0; i < words.size() && i < MAX_WORD_SUFFIXES; i++) {
+            keys.add(String.join(" ", words.subList(i, words.size())));
+        }
+        return new ArrayList<>(keys);
+    }
+
+    private static final class Node {
+        private final Map<Character, Node> children = new HashMap<>();
+        private final Map<String, Entry> terminals = new HashMap<>();
+        private List<Entry> top = List.of();
+    }
+
+    private static final class Entry {
+        private final String id;
+        private final SuggestionResponse response;
+        private final long popularity;
+        private final List<String> keys;
+
+        private Entry(String id, SuggestionResponse response, long popularity) {
+            this.id = id;
+            this.response = response;
+            this.popularity = popularity;
+            this.keys = keysFor(response.getText());
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.SalesRollupProperties;
+import exe.SonMaiHeritage.entity.DailySales;
+import exe.SonMaiHeritage.entity.DailySalesId;
+import exe.SonMaiHeritage.entity.JobWatermark;
+import exe.SonMaiHeritage.model.DailySalesResponse;
+import exe.SonMaiHeritage.repository.DailySalesRepository;
+import exe.SonMaiHeritage.repository.JobWatermarkRepository;
+import exe.SonMaiHeritage.repository.OrderRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Folds newly paid orders into {@code daily_sales} so revenue charts read one row per day and
+ * province instead of scanning the orders table.
+ * <p>
+ * Orders are consumed in (confirmedDate, id) order behind a watermark stored in {@code job_watermarks}.
+ * Each chunk's increments and the watermark advance commit together, so every order is counted
+ * exactly once; a crash just replays from the last committed chunk. Orders later cancelled stay
+ * counted on the day they were paid.
+ */
+@Service
+@Slf4j
+public class SalesRollupService {
+    private static final String JOB_NAME = "daily-sales";
+    private static final String UNKNOWN_PROVINCE = "UNKNOWN";
+    private static final LocalDateTime START = LocalDateTime.of(2000, 1, 1, 0, 0);
+
+    private final OrderRepository orderRepository;
+    private final DailySalesRepository dailySalesRepository;
+    private final JobWatermarkRepository jobWatermarkRepository;
+    private final SalesRollupProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public SalesRollupService(OrderRepository orderRepository, DailySalesRepository dailySalesRepository,
+                              JobWatermarkRepository jobWatermarkRepository, SalesRollupProperties properties,
+                              PlatformTransactionManager transactionManager) {
+        this.orderRepository = orderRepository;
+        this.dailySalesRepository = dailySalesRepository;
+        this.jobWatermarkRepository = jobWatermarkRepository;
+        this.properties = properties;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @Scheduled(fixedDelayString = "${app.sales.rollup.interval-ms:60000}")
+    public void foldNewOrders() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDateTime until = LocalDateTime.now().minus(properties.getLag());
+        try {
+            long folded = 0;
+            int chunk;
+            do {
+                chunk = transactionTemplate.execute(status -> foldChunk(until));
+                folded += chunk;
+            } while (chunk == properties.getBatchSize());
+            if (folded > 0) {
+                log.info("Folded {} paid order(s) into daily sales up to {}", folded, until);
+            }
+        } catch (OptimisticLockingFailureException e) {
+            log.info("Daily sales rollup advanced by another instance, skipping this run");
+        } catch (Exception e) {
+            log.error("Daily sales rollup failed: {}", e.getMessage());
+        }
+    }
+
+    @Transactional(readOnly = true)
+    public List<DailySalesResponse> getDailySales(LocalDate from, LocalDate to, String province) {
+        if (from.isAfter(to)) {
+            throw new IllegalArgumentException("'from' must not be after 'to'");
+        }
+        if (ChronoUnit.DAYS.between(from, to) >= properties.getMaxRangeDays()) {
+            throw new IllegalArgumentException("Date range must not exceed " + properties.getMaxRangeDays() + " days");
+        }
+        if (province == null || province.isBlank()) {
+            return dailySalesRepository.sumByDay(from, to);
+        }
+        return dailySalesRepository.findByProvince(province.trim(), from, to);
+    }
+
+    private int foldChunk(LocalDateTime until) {
+        JobWatermark watermark = jobWatermarkRepository.findById(JOB_NAME).orElseGet(this::startWatermark);
+        List<Object[]> rows = orderRepository.findConfirmedSince(watermark.getProcessedUntil(), watermark.getLastId(),
+                until, PageRequest.of(0, properties.getBatchSize()));
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        // [orderCount, revenue, itemsSold] per day and province within this chunk
+        Map<DailySalesId, long[]> totals = new LinkedHashMap<>();
+        for (Object[] row : rows) {
+            LocalDateTime confirmedDate = (LocalDateTime) row[1];
+            String province = row[2] != null && !((String) row[2]).isBlank() ? ((String) row[2]).trim() : UNKNOWN_PROVINCE;
+            long[] sums = totals.computeIfAbsent(new DailySalesId(confirmedDate.toLocalDate(), province), id -> new long[3]);
+            sums[0]++;
+            sums[1] += row[3] != null ? ((Number) row[3]).longValue() : 0L;
+            sums[2] += ((Number) row[4]).longValue();
+        }
+        totals.forEach((id, sums) -> {
+            if (dailySalesRepository.add(id.getSalesDate(), id.getProvince(), sums[0], sums[1], sums[2]) == 0) {
+                dailySalesRepository.save(new DailySales(id, sums[0], sums[1], sums[2]));
+            }
+        });
+
+        Object[] last = rows.get(rows.size() - 1);
+        watermark.setProcessedUntil((LocalDateTime) last[1]);
+        watermark.setLastId((Integer) last[0]);
+        jobWatermarkRepository.save(watermark);
+        return rows.size();
+    }
+
+    // First run: give orders paid before confirmedDate existed a date, then fold from the beginning
+    private JobWatermark startWatermark() {
+        int backfilled = orderRepository.backfillConfirmedDate();
+        if (backfilled > 0) {
+            log.info("Backfilled confirmation date of {} previously paid order(s)", backfilled);
+        }
+        return JobWatermark.builder().name(JOB_NAME).processedUntil(START).lastId(0).build();
+    }
+}
@@ -0,0 +1,290 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.StockReservationProperties;
+import exe.SonMaiHeritage.exceptions.InsufficientStockException;
+import exe.SonMaiHeritage.exceptions.ProductNotFoundException;
+import exe.SonMaiHeritage.repository.ProductRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.dao.DataAccessException;
+import org.springframework.data.redis.core.StringRedisTemplate;
+import org.springframework.data.redis.core.script.DefaultRedisScript;
+import org.springframework.data.redis.core.script.RedisScript;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scripting.support.ResourceScriptSource;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+/**
+ * Holds stock for unpaid orders in Redis so checkout never has to lock MySQL rows.
+ * <p>
+ * Each product has an available counter ({@code stock:available:<id>}) equal to its MySQL quantity
+ * minus the units held by open reservations ({@code stock:reserved}). Counters are seeded lazily
+ * and dropped whenever the product's MySQL quantity changes, so MySQL stays the source of truth.
+ * Every drop bumps the product's generation ({@code stock:generation}); a seed only lands if the
+ * generation it read before querying MySQL is still current, so a stale quantity is never seeded.
+ * A reservation lives in its own hash with a TTL and an entry in an expiry zset; the sweeper returns
+ * the units of reservations that were neither paid nor cancelled in time.
+ * <p>
+ * If Redis is unavailable checkout proceeds unreserved and the conditional UPDATE at payment time
+ * still prevents overselling.
+ */
+@Service
+@Slf4j
+public class StockReservationService {
+    private static final String AVAILABLE_PREFIX = "stock:available:";
+    private static final String RESERVED_KEY = "stock:reserved";
+    private static final String EXPIRY_KEY = "stock:reservation-expiry";
+    private static final String RESERVATION_PREFIX = "stock:reservation:";
+    private static final String GENERATION_KEY = "stock:generation";
+    // Product ids with a seeded counter, so a reload can drop them without scanning the keyspace
+    private static final String COUNTERS_KEY = "stock:counters";
+    private static final int INVALIDATE_BATCH = 500;
+    private static final int SWEEP_BATCH = 100;
+
+    private final StringRedisTemplate redisTemplate;
+    private final ProductRepository productRepository;
+    private final StockReservationProperties properties;
+    @SuppressWarnings("rawtypes")
+    private final RedisScript<List> reserveScript = script("redis/stock-reserve.lua", List.class);
+    private final RedisScript<Long> seedScript = script("redis/stock-seed.lua", Long.class);
+    private final RedisScript<Long> finishScript = script("redis/stock-finish.lua", Long.class);
+    private final RedisScript<Long> invalidateScript = script("redis/stock-invalidate.lua", Long.class);
+
+    public StockReservationService(StringRedisTemplate redisTemplate, ProductRepository productRepository,
+                                   StockReservationProperties properties) {
+        this.redisTemplate = redisTemplate;
+        this.productRepository = productRepository;
+        this.properties = properties;
+    }
+
+    /**
+     * Reserves all lines of an order or none of them.
+     *
+     * @return true if the stock is now held, false if reservations are disabled or Redis is unreachable
+     * @throws InsufficientStockException if any line can't be covered
+     */
+    public boolean reserve(String orderCode, Map<Integer, Integer> quantitiesByProductId) {
+        if (!properties.isEnabled()) {
+            return false;
+        }
+        SortedMap<Integer, Integer> lines = new TreeMap<>();
+        quantitiesByProductId.forEach((productId, quantity) -> lines.merge(productId, quantity, Integer::sum));
+        List<Integer> productIds = new ArrayList<>(lines.keySet());
+
+        List<String> keys = new ArrayList<>(lines.size() + 3);
+        keys.add(RESERVATION_PREFIX + orderCode);
+        keys.add(EXPIRY_KEY);
+        keys.add(RESERVED_KEY);
+        List<String> args = new ArrayList<>(lines.size() * 2 + 3);
+        args.add(orderCode);
+        args.add(String.valueOf(System.currentTimeMillis() + properties.getTtl().toMillis()));
+        args.add(String.valueOf(properties.getTtl().plus(properties.getKeyGrace()).toSeconds()));
+        lines.forEach((productId, quantity) -> {
+            keys.add(AVAILABLE_PREFIX + productId);
+            args.add(String.valueOf(productId));
+            args.add(String.valueOf(quantity));
+        });
+
+        try {
+            // Each retry seeds one missing counter, so at most one attempt per line plus the final one
+            for (int attempt = 0; attempt <= lines.size(); attempt++) {
+                List<?> result = redisTemplate.execute(reserveScript, keys, args.toArray());
+                long status = ((Number) result.get(0)).longValue();
+                int line = ((Number) result.get(1)).intValue();
+                if (status == 1) {
+                    log.info("Reserved stock for order {}: {}", orderCode, lines);
+                    return true;
+                }
+                Integer productId = productIds.get(line - 1);
+                if (status == 0) {
+                    throw new InsufficientStockException("Insufficient stock for product ID: " + productId
+                            + ", requested: " + lines.get(productId));
+                }
+                seed(productId);
+            }
+            log.warn("Could not seed stock counters for order {}, continuing unreserved", orderCode);
+            return false;
+        } catch (DataAccessException e) {
+            log.warn("Stock reservation unavailable for order {}, continuing unreserved: {}", orderCode, e.getMessage());
+            return false;
+        }
+    }
+
+    /** Returns the order's units to the available counters (cancellation, failed checkout, expiry). */
+    public void release(String orderCode) {
+        try {
+            Long lines = finish(orderCode, true);
+            if (lines > 0) {
+                log.info("Released stock reservation of order {} ({} line(s))", orderCode, lines);
+            }
+        } catch (DataAccessException e) {
+            // The reservation key expires on its own; the sweeper retries via the expiry zset
+            log.warn("Failed to release stock reservation of order {}: {}", orderCode, e.getMessage());
+        }
+    }
+
+    /** {@link #release} once the surrounding transaction commits, e.g. after the cancellation is saved. */
+    public void releaseAfterCommit(String orderCode) {
+        afterCommit(() -> release(orderCode));
+    }
+
+    /**
+     * Ends the reservation of a paid order once its MySQL deduction has committed. Either way the
+     * order's counters are dropped and re-seeded from the deducted quantity; when there was no reservation
+     * (expired, or Redis was down at checkout) that happens here rather than in the finish script.
+     */
+    public void confirmAfterCommit(String orderCode, Collection<Integer> productIds) {
+        afterCommit(() -> {
+            try {
+                if (finish(orderCode, false) == 0) {
+                    invalidate(productIds);
+                }
+            } catch (DataAccessException e) {
+                log.warn("Failed to confirm stock reservation of order {}: {}", orderCode, e.getMessage());
+            }
+        });
+    }
+
+    @Scheduled(fixedDelayString = "${app.stock.reservation.sweep-interval-ms:30000}")
+    public void releaseExpired() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            Set<String> expired = redisTemplate.opsForZSet()
+                    .rangeByScore(EXPIRY_KEY, 0, System.currentTimeMillis(), 0, SWEEP_BATCH);
+            if (expired == null || expired.isEmpty()) {
+                return;
+            }
+            log.info("Releasing {} expired stock reservation(s)", expired.size());
+            expired.forEach(this::release);
+        } catch (DataAccessException e) {
+            log.warn("Stock reservation sweep failed: {}", e.getMessage());
+        }
+    }
+
+    // Admin edits and reloads change MySQL quantities behind the counters' back
+    @TransactionalEventListener(fallbackExecution = true)
+    public void onCatalogChanged(CatalogChangedEvent event) {
+        try {
+            switch (event.getChangeType()) {
+                case PRODUCT_SAVED:
+                case PRODUCT_DELETED:
+                    invalidate(List.of(event.getProductId()));
+                    break;
+                case RELOAD:
+                    invalidateAll();
+                    break;
+                default:
+                    // STOCK_CHANGED comes from paid orders, whose reservations already account for it;
+                    // REMOTE changes were invalidated by the instance that made them (the counters are shared)
+                    break;
+            }
+        } catch (DataAccessException e) {
+            log.warn("Failed to invalidate stock counters after {}: {}", event.getChangeType(), e.getMessage());
+        }
+    }
+
+    // The generation is read before MySQL: if the quantity changes after it was read, the seed is refused
+    private void seed(Integer productId) {
+        String field = String.valueOf(productId);
+        Object generation = redisTemplate.opsForHash().get(GENERATION_KEY, field);
+        Integer quantity = productRepository.findQuantityById(productId)
+                .orElseThrow(() -> new ProductNotFoundException("Product with given id doesn't exist"));
+        Long seeded = redisTemplate.execute(seedScript,
+                List.of(AVAILABLE_PREFIX + productId, RESERVED_KEY, GENERATION_KEY, COUNTERS_KEY),
+                field, String.valueOf(quantity), generation != null ? generation.toString() : "0");
+        if (seeded == null || seeded == 0) {
+            log.debug("Stock counter of product {} was invalidated while seeding", productId);
+        }
+    }
+
+    private Long finish(String orderCode, boolean release) {
+        String reservationKey = RESERVATION_PREFIX + orderCode;
+        // A reservation's lines never change once written, so its counters can be declared up front
+        List<String> productIds = redisTemplate.opsForHash().keys(reservationKey).stream()
+                .map(Object::toString)
+                .toList();
+        List<String> keys = new ArrayList<>(productIds.size() + 4);
+        keys.add(reservationKey);
+        keys.add(EXPIRY_KEY);
+        keys.add(RESERVED_KEY);
+        keys.add(GENERATION_KEY);
+        List<String> args = new ArrayList<>(productIds.size() + 2);
+        args.add(orderCode);
+        args.add(release ? "1" : "0");
+        productIds.forEach(productId -> {
+            keys.add(AVAILABLE_PREFIX + productId);
+            args.add(productId);
+        });
+        Long lines = redisTemplate.execute(finishScript, keys, args.toArray());
+        return lines != null ? lines : 0L;
+    }
+
+    private void invalidate(Collection<?> productIds) {
+        if (productIds.isEmpty()) {
+            return;
+        }
+        List<String> keys = new ArrayList<>(productIds.size() + 1);
+        keys.add(GENERATION_KEY);
+        List<String> args = new ArrayList<>(productIds.size());
+        productIds.forEach(productId -> {
+            keys.add(AVAILABLE_PREFIX + productId);
+            args.add(productId.toString());
+        });
+        redisTemplate.execute(invalidateScript, keys, args.toArray());
+    }
+
+    // Only the registered ids are removed, so a counter seeded meanwhile stays registered
+    private void invalidateAll() {
+        Set<String> productIds = redisTemplate.opsForSet().members(COUNTERS_KEY);
+        if (productIds == null || productIds.isEmpty()) {
+            return;
+        }
+        List<String> batch = new ArrayList<>(INVALIDATE_BATCH);
+        for (String productId : productIds) {
+            batch.add(productId);
+            if (batch.size() == INVALIDATE_BATCH) {
+                invalidate(batch);
+                redisTemplate.opsForSet().remove(COUNTERS_KEY, batch.toArray());
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            invalidate(batch);
+            redisTemplate.opsForSet().remove(COUNTERS_KEY, batch.toArray());
+        }
+        log.info("Dropped {} stock counter(s) after catalog reload", productIds.size());
+    }
+
+    private static void afterCommit(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+
+    private static <T> RedisScript<T> script(String location, Class<T> resultType) {
+        DefaultRedisScript<T> script = new DefaultRedisScript<>();
+        script.setScriptSource(new ResourceScriptSource(new ClassPathResource(location)));
+        script.setResultType(resultType);
+        return script;
+    }
+}
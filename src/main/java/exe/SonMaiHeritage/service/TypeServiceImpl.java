@@ -21,8 +21,8 @@ public class TypeServiceImpl implements TypeService {
     @Override
     public List<TypeResponse> getAllTypes() {
         log.info("Fetching all Types");
-        //Fetch Types from DB
-        List<Type> typeList = typeRepository.findAll();
+        //Fetch Types through the query cache, DB only on a miss
+        List<Type> typeList = typeRepository.findAllCached();
         //now use stream operator to map with response
         List<TypeResponse> typeResponses = typeList.stream()
                 .map(this::convertToTypeResponse)
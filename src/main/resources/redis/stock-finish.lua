@@ -0,0 +1,34 @@
+-- Ends a reservation: on release (cancel/expiry) the units go back to the available counters,
+-- on confirm MySQL has just been deducted, so the counters are dropped and re-seeded from it.
+-- KEYS[1] reservation hash of the order, KEYS[2] expiry zset, KEYS[3] reserved-units hash,
+-- KEYS[4] counter generation hash, KEYS[5..] available counter of each line
+-- ARGV[1] order code, ARGV[2] '1' to release, '0' to confirm, ARGV[3..] productId of each line
+-- Returns the number of lines ended, 0 when there was no reservation
+redis.call('ZREM', KEYS[2], ARGV[1])
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    return 0
+end
+local ended = 0
+for i = 5, #KEYS do
+    local productId = ARGV[i - 2]
+    local quantity = tonumber(redis.call('HGET', KEYS[1], productId))
+    if quantity then
+        ended = ended + 1
+        if redis.call('HINCRBY', KEYS[3], productId, -quantity) <= 0 then
+            redis.call('HDEL', KEYS[3], productId)
+        end
+        if ARGV[2] == '1' then
+            -- A missing counter is re-seeded from MySQL minus reservations, which already excludes these units
+            if redis.call('EXISTS', KEYS[i]) == 1 then
+                redis.call('INCRBY', KEYS[i], quantity)
+            end
+        else
+            -- A counter seeded between the MySQL commit and this call would be short by these units,
+            -- and a seed that read MySQL before the commit must not land afterwards
+            redis.call('HINCRBY', KEYS[4], productId, 1)
+            redis.call('DEL', KEYS[i])
+        end
+    end
+end
+redis.call('DEL', KEYS[1])
+return ended
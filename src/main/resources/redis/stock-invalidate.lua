@@ -0,0 +1,8 @@
+-- Drops available counters whose MySQL quantity changed, and turns away seeds that read it earlier.
+-- KEYS[1] counter generation hash, KEYS[2..] available counter of each product
+-- ARGV[1..] productId of each counter
+for i = 2, #KEYS do
+    redis.call('HINCRBY', KEYS[1], ARGV[i - 1], 1)
+    redis.call('DEL', KEYS[i])
+end
+return #KEYS - 1
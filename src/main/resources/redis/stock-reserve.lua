@@ -0,0 +1,29 @@
+-- Reserves every line of an order atomically, or nothing.
+-- KEYS[1] reservation hash of the order, KEYS[2] expiry zset, KEYS[3] reserved-units hash,
+-- KEYS[4..] available counter of each line
+-- ARGV[1] order code, ARGV[2] expiry (epoch ms), ARGV[3] reservation key TTL (s),
+-- then one (productId, quantity) pair per line
+-- Returns {1, lines} on success, {0, i} when line i is short, {-1, i} when counter i must be seeded first
+if redis.call('EXISTS', KEYS[1]) == 1 then
+    return {1, 0}
+end
+local lines = #KEYS - 3
+for i = 1, lines do
+    local available = redis.call('GET', KEYS[i + 3])
+    if not available then
+        return {-1, i}
+    end
+    if tonumber(available) < tonumber(ARGV[3 + 2 * i]) then
+        return {0, i}
+    end
+end
+for i = 1, lines do
+    local productId = ARGV[2 + 2 * i]
+    local quantity = tonumber(ARGV[3 + 2 * i])
+    redis.call('DECRBY', KEYS[i + 3], quantity)
+    redis.call('HINCRBY', KEYS[3], productId, quantity)
+    redis.call('HSET', KEYS[1], productId, quantity)
+end
+redis.call('EXPIRE', KEYS[1], ARGV[3])
+redis.call('ZADD', KEYS[2], ARGV[2], ARGV[1])
+return {1, lines}
@@ -0,0 +1,15 @@
+-- Seeds an available counter from MySQL unless another caller already did.
+-- KEYS[1] available counter, KEYS[2] reserved-units hash, KEYS[3] counter generation hash,
+-- KEYS[4] set of seeded product ids
+-- ARGV[1] productId, ARGV[2] quantity currently in MySQL, ARGV[3] generation read before that quantity
+-- Returns 1 when the counter exists afterwards, 0 when the quantity was read before the last
+-- invalidation and may already be stale
+if (redis.call('HGET', KEYS[3], ARGV[1]) or '0') ~= ARGV[3] then
+    return 0
+end
+if redis.call('EXISTS', KEYS[1]) == 0 then
+    local reserved = tonumber(redis.call('HGET', KEYS[2], ARGV[1]) or '0')
+    redis.call('SET', KEYS[1], tonumber(ARGV[2]) - reserved)
+    redis.call('SADD', KEYS[4], ARGV[1])
+end
+return 1
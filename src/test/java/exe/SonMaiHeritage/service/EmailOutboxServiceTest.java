@@ -0,0 +1,149 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.EmailOutboxProperties;
+import exe.SonMaiHeritage.config.EmailTemplateConfig;
+import exe.SonMaiHeritage.config.MailDispatcherProperties;
+import exe.SonMaiHeritage.entity.EmailOutbox;
+import exe.SonMaiHeritage.repository.EmailOutboxRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * Runs the outbox against a real database and a fake SMTP server. Workers update rows on their own
+ * threads, so the test runs outside a transaction and waits for the rows to settle.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+class EmailOutboxServiceTest {
+    private static final int MAX_ATTEMPTS = 3;
+    private static final Duration INITIAL_BACKOFF = Duration.ofMinutes(1);
+
+    @Autowired
+    private EmailOutboxRepository emailOutboxRepository;
+
+    private FakeSmtpServer smtpServer;
+    private MailDispatcher mailDispatcher;
+    private EmailOutboxService emailOutboxService;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new FakeSmtpServer();
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.port());
+        mailDispatcher = new MailDispatcher(mailSender, new MailDispatcherProperties());
+        mailDispatcher.start();
+
+        EmailOutboxProperties properties = new EmailOutboxProperties();
+        properties.setWorkers(2);
+        properties.setMaxAttempts(MAX_ATTEMPTS);
+        properties.setInitialBackoff(INITIAL_BACKOFF);
+        EmailService emailService = new EmailService(mailDispatcher, new EmailTemplateConfig().emailTemplateEngine());
+        emailOutboxService = new EmailOutboxService(emailOutboxRepository, emailService, properties);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        emailOutboxService.shutdown();
+        mailDispatcher.shutdown();
+        smtpServer.close();
+        emailOutboxRepository.deleteAll();
+    }
+
+    @Test
+    void failedSendsBackOffExponentiallyUntilDead() {
+        Long id = insert("reject@example.com", EmailOutbox.OutboxStatus.PENDING, 0, LocalDateTime.now());
+
+        for (int attempt = 1; attempt < MAX_ATTEMPTS; attempt++) {
+            LocalDateTime before = LocalDateTime.now();
+            EmailOutbox email = dispatchAndAwaitAttempt(id, attempt);
+            LocalDateTime after = LocalDateTime.now();
+
+            assertThat(email.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.PENDING);
+            assertThat(email.getLastError()).isNotBlank();
+            // Doubles per attempt, within the +/-20% jitter
+            Duration delay = INITIAL_BACKOFF.multipliedBy(1L << (attempt - 1));
+            assertThat(email.getNextAttemptAt())
+                    .isAfterOrEqualTo(before.plus(delay.multipliedBy(4).dividedBy(5)))
+                    .isBeforeOrEqualTo(after.plus(delay.multipliedBy(6).dividedBy(5)));
+            makeDue(id);
+        }
+
+        EmailOutbox dead = dispatchAndAwaitAttempt(id, MAX_ATTEMPTS);
+        assertThat(dead.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.DEAD);
+        assertThat(smtpServer.messages()).isEmpty();
+
+        // A dead email is no longer picked up
+        emailOutboxService.dispatchDue();
+        assertThat(reload(id).getAttempts()).isEqualTo(MAX_ATTEMPTS);
+    }
+
+    @Test
+    void expiredLeaseIsTakenOverAndLiveLeaseIsLeftAlone() {
+        LocalDateTime now = LocalDateTime.now();
+        // Claimed by a worker that died; its lease ran out a minute ago
+        Long abandoned = insert("abandoned@example.com", EmailOutbox.OutboxStatus.SENDING, 1, now.minusMinutes(1));
+        // Claimed by a worker that is still within its lease
+        Long inFlight = insert("in-flight@example.com", EmailOutbox.OutboxStatus.SENDING, 1, now.plusMinutes(4));
+
+        emailOutboxService.dispatchDue();
+
+        EmailOutbox takenOver = await().atMost(Duration.ofSeconds(10))
+                .until(() -> reload(abandoned), email -> email.getStatus() == EmailOutbox.OutboxStatus.SENT);
+        assertThat(takenOver.getAttempts()).isEqualTo(2);
+        assertThat(smtpServer.messagesTo("abandoned@example.com")).isEqualTo(1);
+
+        EmailOutbox untouched = reload(inFlight);
+        assertThat(untouched.getStatus()).isEqualTo(EmailOutbox.OutboxStatus.SENDING);
+        assertThat(untouched.getAttempts()).isEqualTo(1);
+        assertThat(smtpServer.messagesTo("in-flight@example.com")).isZero();
+    }
+
+    private EmailOutbox dispatchAndAwaitAttempt(Long id, int attempt) {
+        emailOutboxService.dispatchDue();
+        return await().atMost(Duration.ofSeconds(10))
+                .until(() -> reload(id), email -> email.getAttempts() == attempt
+                        && email.getStatus() != EmailOutbox.OutboxStatus.SENDING);
+    }
+
+    private Long insert(String recipient, EmailOutbox.OutboxStatus status, int attempts, LocalDateTime nextAttemptAt) {
+        return emailOutboxRepository.save(EmailOutbox.builder()
+                .emailType(EmailOutboxService.ORDER_CONFIRMATION)
+                .reference("ORD1")
+                .recipient(recipient)
+                .subject("Xác nhận đơn hàng #ORD1")
+                .body("Cảm ơn bạn đã đặt hàng")
+                .status(status)
+                .attempts(attempts)
+                .nextAttemptAt(nextAttemptAt)
+                .createdDate(LocalDateTime.now())
+                .build()).getId();
+    }
+
+    private void makeDue(Long id) {
+        EmailOutbox email = reload(id);
+        email.setNextAttemptAt(LocalDateTime.now().minusSeconds(1));
+        emailOutboxRepository.save(email);
+    }
+
+    private EmailOutbox reload(Long id) {
+        return emailOutboxRepository.findById(id).orElseThrow();
+    }
+}
@@ -0,0 +1,171 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.MailDispatcherProperties;
+import jakarta.mail.SendFailedException;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.mail.MailSendException;
+import org.springframework.mail.javamail.JavaMailSenderImpl;
+import org.springframework.mail.javamail.MimeMessageHelper;
+import org.springframework.mail.javamail.MimeMessagePreparator;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class MailDispatcherTest {
+    private static final int BATCH_SIZE = 5;
+
+    private FakeSmtpServer smtpServer;
+    private MailDispatcherProperties properties;
+    private MailDispatcher mailDispatcher;
+    // Stands in for the request threads (and outbox workers) that call send() concurrently
+    private final ExecutorService callers = Executors.newCachedThreadPool();
+
+    @BeforeEach
+    void setUp() throws IOException {
+        smtpServer = new FakeSmtpServer();
+        properties = new MailDispatcherProperties();
+        properties.setBatchSize(BATCH_SIZE);
+        // Long enough for a burst of sends to land in one batch
+        properties.setLinger(Duration.ofMillis(500));
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        callers.shutdownNow();
+        if (mailDispatcher != null) {
+            mailDispatcher.shutdown();
+        }
+        smtpServer.close();
+    }
+
+    @Test
+    void sendsABurstAsOneBatchOverOneConnection() throws Exception {
+        startDispatcher();
+
+        awaitAll(sendTo("first-%d@example.com", BATCH_SIZE));
+
+        assertThat(smtpServer.messages()).hasSize(BATCH_SIZE);
+        assertThat(smtpServer.connections()).isEqualTo(1);
+        assertThat(mailDispatcher.metrics()).containsEntry("batches", 1L);
+
+        // The connection outlives the batch
+        awaitAll(sendTo("second-%d@example.com", 3));
+
+        assertThat(smtpServer.messages()).hasSize(BATCH_SIZE + 3);
+        assertThat(smtpServer.connections()).isEqualTo(1);
+        assertThat(mailDispatcher.metrics()).containsEntry("batches", 2L);
+    }
+
+    @Test
+    void reconnectsAfterTheServerDropsTheConnection() throws Exception {
+        startDispatcher();
+        mailDispatcher.send(message("before@example.com"));
+
+        smtpServer.dropConnections();
+        mailDispatcher.send(message("after@example.com"));
+
+        assertThat(smtpServer.messagesTo("before@example.com")).isEqualTo(1);
+        assertThat(smtpServer.messagesTo("after@example.com")).isEqualTo(1);
+        assertThat(smtpServer.connections()).isEqualTo(2);
+    }
+
+    @Test
+    void rejectedRecipientFailsOnlyItsOwnMessage() throws Exception {
+        startDispatcher();
+
+        CompletableFuture<Void> first = sendAsync(message("first@example.com"));
+        CompletableFuture<Void> rejected = sendAsync(message("reject@example.com"));
+        CompletableFuture<Void> last = sendAsync(message("last@example.com"));
+
+        first.get(10, TimeUnit.SECONDS);
+        last.get(10, TimeUnit.SECONDS);
+        assertThatThrownBy(() -> rejected.get(10, TimeUnit.SECONDS))
+                .isInstanceOf(ExecutionException.class)
+                .hasCauseInstanceOf(MailSendException.class)
+                .hasRootCauseInstanceOf(SendFailedException.class);
+        assertThat(smtpServer.messages()).hasSize(2);
+        // A refused recipient is not a broken connection
+        assertThat(smtpServer.connections()).isEqualTo(1);
+        assertThat(mailDispatcher.metrics()).containsEntry("reconnects", 0L);
+    }
+
+    @Test
+    void messageThatTimedOutInTheQueueIsNeverSent() throws Exception {
+        properties.setSendTimeout(Duration.ofMillis(500));
+        // Each message goes out on its own, so the slow one is picked up (and can't be withdrawn) at once
+        properties.setLinger(Duration.ZERO);
+        startDispatcher();
+
+        // Keeps the dispatcher thread busy well past the caller's timeout
+        CountDownLatch preparing = new CountDownLatch(1);
+        CompletableFuture<Void> slow = sendAsync(mimeMessage -> {
+            preparing.countDown();
+            Thread.sleep(2000);
+            message("slow@example.com").prepare(mimeMessage);
+        });
+        assertThat(preparing.await(10, TimeUnit.SECONDS)).isTrue();
+        assertThatThrownBy(() -> mailDispatcher.send(message("late@example.com")))
+                .isInstanceOf(MailSendException.class)
+                .hasMessageContaining("Timed out");
+
+        slow.get(10, TimeUnit.SECONDS);
+        // Sent after the withdrawn message would have been, so it can no longer be pending
+        mailDispatcher.send(message("next@example.com"));
+        assertThat(smtpServer.messagesTo("late@example.com")).isZero();
+        assertThat(smtpServer.messages()).hasSize(2);
+    }
+
+    private void startDispatcher() {
+        JavaMailSenderImpl mailSender = new JavaMailSenderImpl();
+        mailSender.setHost("127.0.0.1");
+        mailSender.setPort(smtpServer.port());
+        Properties javaMailProperties = new Properties();
+        javaMailProperties.setProperty("mail.smtp.connectiontimeout", "5000");
+        javaMailProperties.setProperty("mail.smtp.timeout", "5000");
+        javaMailProperties.setProperty("mail.smtp.writetimeout", "5000");
+        mailSender.setJavaMailProperties(javaMailProperties);
+        mailDispatcher = new MailDispatcher(mailSender, properties);
+        mailDispatcher.start();
+    }
+
+    private CompletableFuture<Void> sendAsync(MimeMessagePreparator preparator) {
+        return CompletableFuture.runAsync(() -> mailDispatcher.send(preparator), callers);
+    }
+
+    private List<CompletableFuture<Void>> sendTo(String recipientPattern, int count) {
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            futures.add(sendAsync(message(String.format(recipientPattern, i))));
+        }
+        return futures;
+    }
+
+    private static void awaitAll(List<CompletableFuture<Void>> futures) throws Exception {
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+    }
+
+    private static MimeMessagePreparator message(String to) {
+        return mimeMessage -> {
+            MimeMessageHelper helper = new MimeMessageHelper(mimeMessage, StandardCharsets.UTF_8.name());
+            helper.setFrom("noreply@sonmaiheritage.com");
+            helper.setTo(to);
+            helper.setSubject("Xác nhận đơn hàng");
+            helper.setText("Cảm ơn bạn đã đặt hàng");
+        };
+    }
+}
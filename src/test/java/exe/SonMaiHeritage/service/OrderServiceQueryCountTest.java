@@ -0,0 +1,117 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.entity.Order;
+import exe.SonMaiHeritage.entity.OrderItem;
+import exe.SonMaiHeritage.entity.User;
+import exe.SonMaiHeritage.model.OrderResponse;
+import jakarta.persistence.EntityManagerFactory;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Guards the admin order listing against N+1 loading: one page of orders with their items and
+ * customers must cost the id page, its count and one graph fetch, however many orders it holds.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import(OrderServiceImpl.class)
+class OrderServiceQueryCountTest {
+    private static final int ORDERS = 15;
+    private static final int PAGE_SIZE = 10;
+
+    @Autowired
+    private OrderServiceImpl orderService;
+    @Autowired
+    private TestEntityManager entityManager;
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @MockBean
+    private ProductService productService;
+    @MockBean
+    private EmailOutboxService emailOutboxService;
+    @MockBean
+    private StockReservationService stockReservationService;
+    @MockBean
+    private OptimisticLockRetrier optimisticLockRetrier;
+    @MockBean
+    private OrderCodeGenerator orderCodeGenerator;
+    @MockBean
+    private OrderStatsService orderStatsService;
+
+    @BeforeEach
+    void createOrders() {
+        List<User> users = new ArrayList<>();
+        for (int u = 0; u < 3; u++) {
+            users.add(entityManager.persist(User.builder()
+                    .username("customer" + u)
+                    .email("customer" + u + "@example.com")
+                    .password("secret")
+                    .firstName("Khách")
+                    .lastName(String.valueOf(u))
+                    .build()));
+        }
+        for (int i = 0; i < ORDERS; i++) {
+            Order order = Order.builder()
+                    .orderCode("ORD" + i)
+                    .user(users.get(i % users.size()))
+                    .totalAmount(300_000L)
+                    .status(Order.OrderStatus.PENDING)
+                    .createdDate(LocalDateTime.now().minusMinutes(i))
+                    .build();
+            List<OrderItem> items = new ArrayList<>();
+            for (int line = 0; line < 2; line++) {
+                items.add(OrderItem.builder()
+                        .order(order)
+                        .productId(line + 1)
+                        .productName("Tranh sơn mài " + line)
+                        .productPrice(150_000L)
+                        .quantity(1)
+                        .totalPrice(150_000L)
+                        .build());
+            }
+            order.setOrderItems(items);
+            entityManager.persist(order);
+        }
+        // Start from an empty persistence context so nothing is served without a query
+        entityManager.flush();
+        entityManager.clear();
+    }
+
+    @Test
+    void orderPageIsLoadedInThreeStatements() {
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<Order> page = orderService.getAllOrders(PageRequest.of(0, PAGE_SIZE, Sort.by(Sort.Direction.DESC, "createdDate")));
+        List<OrderResponse> responses = orderService.convertToOrderResponseList(page.getContent());
+
+        assertThat(responses).hasSize(PAGE_SIZE);
+        assertThat(page.getTotalElements()).isEqualTo(ORDERS);
+        assertThat(responses).allSatisfy(response -> {
+            assertThat(response.getOrderItems()).hasSize(2);
+            assertThat(response.getUserFullName()).startsWith("Khách");
+        });
+        // Id page + count + orders with items and users; lazy loading would add two statements per order
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(3);
+    }
+}
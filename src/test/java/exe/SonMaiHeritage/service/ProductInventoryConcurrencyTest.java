@@ -0,0 +1,136 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.CatalogProperties;
+import exe.SonMaiHeritage.entity.Product;
+import exe.SonMaiHeritage.exceptions.InsufficientStockException;
+import exe.SonMaiHeritage.repository.ProductRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Races many buyers through {@link ProductServiceImpl#deductInventory} against products with less
+ * stock than buyers. Every call commits on its own thread, so the test itself runs outside a transaction.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Transactional(propagation = Propagation.NOT_SUPPORTED)
+@Import(ProductServiceImpl.class)
+class ProductInventoryConcurrencyTest {
+    private static final int THREADS = 16;
+
+    @Autowired
+    private ProductServiceImpl productService;
+    @Autowired
+    private ProductRepository productRepository;
+
+    @MockBean
+    private CatalogSnapshotService catalogSnapshotService;
+    @MockBean
+    private ProductSearchIndex productSearchIndex;
+    @MockBean
+    private ProductSuggestIndex productSuggestIndex;
+    @MockBean
+    private ProductFuzzyIndex productFuzzyIndex;
+    @MockBean
+    private CatalogProperties catalogProperties;
+
+    @AfterEach
+    void cleanUp() {
+        productRepository.deleteAll();
+    }
+
+    @Test
+    void singleUnitBuyersSellOutExactly() throws Exception {
+        Integer productId = saveProduct(5);
+
+        int succeeded = race(Map.of(productId, 1));
+
+        assertThat(succeeded).isEqualTo(5);
+        assertThat(productRepository.findQuantityById(productId)).contains(0);
+    }
+
+    @Test
+    void buyersNeverTakeMoreThanIsLeft() throws Exception {
+        // 7 units at 2 per buyer: floor(7 / 2) = 3 buyers win and one unit is left that nobody can take
+        Integer productId = saveProduct(7);
+
+        int succeeded = race(Map.of(productId, 2));
+
+        assertThat(succeeded).isEqualTo(3);
+        assertThat(productRepository.findQuantityById(productId)).contains(1);
+    }
+
+    @Test
+    void shortLineRollsBackTheWholeOrder() throws Exception {
+        // Plenty of the first product, the second runs out after 4 orders of 3
+        Integer plentiful = saveProduct(100);
+        Integer scarce = saveProduct(13);
+
+        int succeeded = race(Map.of(plentiful, 1, scarce, 3));
+
+        assertThat(succeeded).isEqualTo(4);
+        assertThat(productRepository.findQuantityById(scarce)).contains(1);
+        // Losing orders must not keep their deduction of the line that did have stock
+        assertThat(productRepository.findQuantityById(plentiful)).contains(100 - succeeded);
+    }
+
+    private Integer saveProduct(int quantity) {
+        return productRepository.save(Product.builder()
+                .name("Tranh sơn mài")
+                .price(1_000_000L)
+                .quantity(quantity)
+                .status(Product.ProductStatus.ACTIVE)
+                .build()).getId();
+    }
+
+    // Releases all threads at once so their UPDATEs contend for the same rows; returns how many orders went through
+    private int race(Map<Integer, Integer> order) throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < THREADS; i++) {
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    productService.deductInventory(order);
+                    return null;
+                }));
+            }
+            start.countDown();
+            int succeeded = 0;
+            for (Future<?> future : futures) {
+                try {
+                    future.get(30, TimeUnit.SECONDS);
+                    succeeded++;
+                } catch (ExecutionException e) {
+                    // Anything but a clean refusal is a bug
+                    assertThat(e.getCause()).isInstanceOf(InsufficientStockException.class);
+                }
+            }
+            return succeeded;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,129 @@
+package exe.SonMaiHeritage.service;
+
+import exe.SonMaiHeritage.config.SalesRollupProperties;
+import exe.SonMaiHeritage.entity.Order;
+import exe.SonMaiHeritage.entity.OrderItem;
+import exe.SonMaiHeritage.model.DailySalesResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.autoconfigure.orm.jpa.DataJpaTest;
+import org.springframework.boot.test.autoconfigure.orm.jpa.TestEntityManager;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.context.annotation.Import;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * DIRECT (pay on delivery) orders are never paid online: they count as sales once an admin moves
+ * them out of PENDING, and must reach the rollup the same way as orders confirmed by a payment.
+ */
+@DataJpaTest
+@ActiveProfiles("test")
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+@Import({OrderServiceImpl.class, SalesRollupService.class, SalesRollupProperties.class, OptimisticLockRetrier.class})
+class SalesRollupServiceTest {
+    private static final String PROVINCE = "Hà Nội";
+
+    @Autowired
+    private OrderServiceImpl orderService;
+    @Autowired
+    private SalesRollupService salesRollupService;
+    @Autowired
+    private SalesRollupProperties properties;
+    @Autowired
+    private TestEntityManager entityManager;
+
+    @MockBean
+    private ProductService productService;
+    @MockBean
+    private EmailOutboxService emailOutboxService;
+    @MockBean
+    private StockReservationService stockReservationService;
+    @MockBean
+    private OrderCodeGenerator orderCodeGenerator;
+    @MockBean
+    private OrderStatsService orderStatsService;
+
+    @BeforeEach
+    void foldWithoutLag() {
+        properties.setLag(Duration.ZERO);
+    }
+
+    @Test
+    void orderConfirmedByAnAdminIsFolded() {
+        Integer orderId = createPendingOrder("ORD1", 450_000L, 3);
+
+        Order confirmed = orderService.updateOrderStatus(orderId, Order.OrderStatus.CONFIRMED);
+        salesRollupService.foldNewOrders();
+
+        assertThat(confirmed.getConfirmedDate()).isNotNull();
+        assertThat(dailySales()).singleElement().satisfies(day -> {
+            assertThat(day.getOrderCount()).isEqualTo(1L);
+            assertThat(day.getRevenue()).isEqualTo(450_000L);
+            assertThat(day.getItemsSold()).isEqualTo(3L);
+        });
+    }
+
+    @Test
+    void laterStatusChangesKeepTheConfirmationAndAreNotFoldedAgain() {
+        Integer orderId = createPendingOrder("ORD2", 200_000L, 1);
+        LocalDateTime confirmedDate = orderService.updateOrderStatus(orderId, Order.OrderStatus.CONFIRMED).getConfirmedDate();
+        salesRollupService.foldNewOrders();
+
+        Order shipped = orderService.updateOrderStatus(orderId, Order.OrderStatus.SHIPPING);
+        orderService.updateOrderStatus(orderId, Order.OrderStatus.DELIVERED);
+        salesRollupService.foldNewOrders();
+
+        assertThat(shipped.getConfirmedDate()).isEqualTo(confirmedDate);
+        assertThat(dailySales()).singleElement()
+                .satisfies(day -> assertThat(day.getOrderCount()).isEqualTo(1L));
+    }
+
+    @Test
+    void cancelledOrderIsNotFolded() {
+        Integer orderId = createPendingOrder("ORD3", 300_000L, 2);
+
+        Order cancelled = orderService.updateOrderStatus(orderId, Order.OrderStatus.CANCELLED);
+        salesRollupService.foldNewOrders();
+
+        assertThat(cancelled.getConfirmedDate()).isNull();
+        assertThat(dailySales()).isEmpty();
+    }
+
+    private Integer createPendingOrder(String orderCode, long totalAmount, int quantity) {
+        Order order = Order.builder()
+                .orderCode(orderCode)
+                .totalAmount(totalAmount)
+                .status(Order.OrderStatus.PENDING)
+                .paymentMethod("DIRECT")
+                .paymentStatus("PENDING")
+                .shipProvince(PROVINCE)
+                .createdDate(LocalDateTime.now())
+                .build();
+        order.setOrderItems(List.of(OrderItem.builder()
+                .order(order)
+                .productId(1)
+                .productName("Tranh sơn mài")
+                .productPrice(totalAmount / quantity)
+                .quantity(quantity)
+                .totalPrice(totalAmount)
+                .build()));
+        Integer id = entityManager.persist(order).getId();
+        entityManager.flush();
+        entityManager.clear();
+        return id;
+    }
+
+    private List<DailySalesResponse> dailySales() {
+        LocalDate today = LocalDate.now();
+        return salesRollupService.getDailySales(today, today, PROVINCE);
+    }
+}